@@ -0,0 +1,292 @@
+package domein;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import repo.CategoryRepository;
+
+/**
+ * Stress run for {@link CategoryManager} in concurrent mode. Readers, single-call writers, batches
+ * (some rolled back on purpose) and nested readers run side by side for a fixed time. The run fails
+ * when a thread throws anything but the IllegalArgumentException a lost race produces, when a
+ * reader sees a rolled-back batch, when the threads do not stop in time, or when the indexes, the
+ * stats or a reload of the journal disagree with the tree afterwards.
+ *
+ * <pre>
+ * javac -d bin $(find src/domein src/repo -name '*.java')
+ * javac -cp bin -d bench-bin bench/domein/CategoryManagerStress.java
+ * java -cp bin:bench-bin domein.CategoryManagerStress [seconds] [readers]
+ * </pre>
+ */
+public class CategoryManagerStress {
+
+    private static final int CATEGORIES = 20;
+    private static final int SUBJECTS = 10;
+    private static final int TASKS = 50;
+    private static final String DOOMED = "Doomed ";
+
+    private final CategoryManager manager;
+    private final long[] taskIds;
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rollbacks = new AtomicLong();
+    private final AtomicLong nested = new AtomicLong();
+    private final AtomicLong lostRaces = new AtomicLong();
+
+    private CategoryManagerStress(CategoryManager manager) {
+        this.manager = manager;
+        List<Long> ids = new ArrayList<>();
+        for (Task t : manager.getTasksForCategory("C0")) ids.add(t.getId());
+        taskIds = ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(3, Runtime.getRuntime().availableProcessors());
+        File dir = Files.createTempDirectory("kairos-stress").toFile();
+        String path = new File(dir, "Category.json").getPath();
+
+        CategoryManager manager = new CategoryManager(new CategoryRepository(path), true);
+        populate(manager);
+        CategoryManagerStress stress = new CategoryManagerStress(manager);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < readers; i++) threads.add(stress.thread("reader-" + i, stress::readLoop, i));
+        for (int i = 0; i < 2; i++) threads.add(stress.thread("writer-" + i, stress::writeLoop, 100 + i));
+        threads.add(stress.thread("batcher", stress::batchLoop, 200));
+        threads.add(stress.thread("nested-reader", stress::nestedReadLoop, 300));
+        threads.forEach(Thread::start);
+        Thread.sleep(seconds * 1000L);
+        stress.stop.set(true);
+
+        boolean hung = false;
+        for (Thread t : threads) {
+            t.join(10_000);
+            if (t.isAlive()) {
+                hung = true;
+                stress.failures.add(t.getName() + " did not stop; stuck at " + stackOf(t));
+            }
+        }
+        if (!hung) stress.checkInvariants(path);
+
+        System.out.printf("%d s, %d readers: %,d reads (%,d nested), %,d writes, %,d batches (%,d rolled back), %,d lost races%n",
+                seconds, readers, stress.reads.get(), stress.nested.get(), stress.writes.get(),
+                stress.batches.get(), stress.rollbacks.get(), stress.lostRaces.get());
+        if (stress.failures.isEmpty()) {
+            System.out.println("OK");
+        } else {
+            stress.failures.stream().limit(20).forEach(f -> System.out.println("FAIL " + f));
+            System.exit(1);
+        }
+    }
+
+    private static void populate(CategoryManager manager) {
+        manager.enableWriteBehind(Duration.ofMillis(20), Duration.ofMillis(200));
+        manager.batch(tx -> {
+            for (int c = 0; c < CATEGORIES; c++) {
+                tx.addCategory(new Category("C" + c));
+                for (int s = 0; s < SUBJECTS; s++) {
+                    tx.addSubject("C" + c, new Subject("S" + s));
+                    for (int t = 0; t < TASKS; t++) {
+                        LocalDateTime due = t % 3 == 0 ? LocalDateTime.now().plusSeconds(2 + t / 3) : null;
+                        tx.addTask("C" + c, "S" + s, new Task("T" + t, "task " + t, Difficulty.values()[t % 3], due));
+                    }
+                }
+            }
+        });
+    }
+
+    private interface Loop {
+        void step(Random random);
+    }
+
+    private Thread thread(String name, Loop loop, long seed) {
+        return new Thread(() -> {
+            Random random = new Random(seed);
+            while (!stop.get()) {
+                try {
+                    loop.step(random);
+                } catch (IllegalArgumentException e) {
+                    lostRaces.incrementAndGet();
+                } catch (Throwable e) {
+                    failures.add(name + ": " + e + " at " + (e.getStackTrace().length > 0 ? e.getStackTrace()[0] : "?"));
+                }
+            }
+        }, name);
+    }
+
+    // --- Loops ---
+    private void readLoop(Random r) {
+        String c = "C" + r.nextInt(CATEGORIES);
+        String s = "S" + r.nextInt(SUBJECTS);
+        switch (r.nextInt(12)) {
+            case 0 -> {
+                Task t = manager.getTaskById(taskIds[r.nextInt(taskIds.length)]);
+                if (t != null && t.getName() == null) failures.add("task without a name");
+            }
+            case 1 -> manager.getTaskView(taskIds[r.nextInt(taskIds.length)]);
+            case 2 -> manager.getTaskViews(c, s);
+            case 3 -> manager.tasksToString(c, s);
+            case 4 -> {
+                Page<TaskView> page = manager.listTasks(c, s, null, 20);
+                if (page.getItems().size() > 20) failures.add("page larger than asked");
+            }
+            case 5 -> manager.findTasks(c, Difficulty.HARD, false);
+            case 6 -> {
+                for (CategoryView v : manager.getCategoryViews()) {
+                    if (v.getName().startsWith(DOOMED)) failures.add("reader saw rolled-back category " + v.getName());
+                }
+            }
+            case 7 -> {
+                TreeSnapshot snap = manager.getSnapshot();
+                if (snap.getCategories().size() < CATEGORIES) failures.add("snapshot lost a category");
+            }
+            case 8 -> manager.getStats();
+            case 9 -> manager.searchTasks("task");
+            case 10 -> manager.getUpcomingTasks(10);
+            default -> manager.fuzzySearchTasks("T" + r.nextInt(TASKS) + "x", 3);
+        }
+        reads.incrementAndGet();
+    }
+
+    private void writeLoop(Random r) {
+        String c = "C" + r.nextInt(CATEGORIES);
+        String s = "S" + r.nextInt(SUBJECTS);
+        String name = Thread.currentThread().getName() + "-" + r.nextInt(1000);
+        switch (r.nextInt(7)) {
+            case 0 -> manager.addSubject(c, new Subject(name));
+            case 1 -> manager.removeSubject(c, name);
+            case 2 -> manager.addTask(c, s, new Task(name, "written", Difficulty.MEDIUM, null));
+            case 3 -> manager.removeTask(c, s, name);
+            case 4 -> manager.editTask(taskIds[r.nextInt(taskIds.length)],
+                    new Task("T" + r.nextInt(TASKS) + "-" + name, "edited", Difficulty.EASY, LocalDateTime.now().plusSeconds(1)));
+            case 5 -> manager.addTaskLink(c, s, "T" + r.nextInt(TASKS), "doc", "http://example.org/" + name);
+            default -> manager.removeTaskLink(c, s, "T" + r.nextInt(TASKS), "doc");
+        }
+        writes.incrementAndGet();
+    }
+
+    private void batchLoop(Random r) {
+        long n = batches.incrementAndGet();
+        boolean doom = r.nextInt(3) == 0;
+        String name = (doom ? DOOMED : "Batch ") + n;
+        try {
+            manager.batch(tx -> {
+                tx.addCategory(new Category(name));
+                tx.addSubject(name, new Subject("S"));
+                for (int t = 0; t < 5; t++) tx.addTask(name, "S", new Task("T" + t, "batched", Difficulty.HARD, null));
+                // public mutators called inside the batch join it rather than taking the lock again
+                manager.addTaskLink(name, "S", "T0", "doc", "http://example.org");
+                manager.editCategory(name, name + " renamed");
+                if (doom) throw new IllegalStateException("rolled back on purpose");
+            });
+        } catch (IllegalStateException e) {
+            rollbacks.incrementAndGet();
+            return;
+        }
+        manager.removeCategory(name + " renamed");
+    }
+
+    /** A read section that calls back into a public read while writers queue; must not deadlock. */
+    @SuppressWarnings("unchecked")
+    private void nestedReadLoop(Random r) {
+        String c = "C" + r.nextInt(CATEGORIES);
+        String s = "S" + r.nextInt(SUBJECTS);
+        try {
+            Method read = CategoryManager.class.getDeclaredMethod("read", Supplier.class);
+            read.setAccessible(true);
+            Object inner = read.invoke(manager, (Supplier<Object>) () -> manager.getTaskViews(c, s));
+            if (!(inner instanceof List)) failures.add("nested read returned " + inner);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e.getCause() != null ? e.getCause() : e);
+        }
+        nested.incrementAndGet();
+        reads.incrementAndGet();
+    }
+
+    // --- Invariants ---
+    private void checkInvariants(String path) {
+        int subjects = 0;
+        int tasks = 0;
+        int completed = 0;
+        for (Category c : manager.getCategories()) {
+            if (c.getName().startsWith(DOOMED)) failures.add("rolled-back category survived: " + c.getName());
+            if (manager.getCategoryById(c.getId()) != c) failures.add("id index lost category " + c.getName());
+            Category byName = manager.getCategoryByName(c.getName());
+            if (byName == null || !byName.getName().equals(c.getName())) failures.add("name index lost category " + c.getName());
+            for (Subject s : c.getSubjects()) {
+                subjects++;
+                if (s.getCategory() != c) failures.add("subject " + s.getName() + " has the wrong parent");
+                if (manager.getSubjectById(s.getId()) != s) failures.add("id index lost subject " + s.getName());
+                if (manager.getSubjectByName(c.getName(), s.getName()) == null) failures.add("name index lost subject " + s.getName());
+                for (Task t : s.getTasks()) {
+                    tasks++;
+                    if (t.isCompleted()) completed++;
+                    if (t.getSubject() != s) failures.add("task " + t.getName() + " has the wrong parent");
+                    if (manager.getTaskById(t.getId()) != t) failures.add("id index lost task " + t.getName());
+                    if (manager.getTaskByName(c.getName(), s.getName(), t.getName()) == null) failures.add("name index lost task " + t.getName());
+                }
+            }
+        }
+        CategoryStats stats = manager.getStats();
+        if (stats.getCategoryCount() != manager.getCategories().size() || stats.getSubjectCount() != subjects
+                || stats.getTaskCount() != tasks || stats.getCompletedCount() != completed) {
+            failures.add("stats " + stats + " disagree with a recount of " + subjects + " subjects and " + tasks + " tasks");
+        }
+
+        manager.flush();
+        awaitCompaction(path);
+        CategoryManager reloaded = new CategoryManager(new CategoryRepository(path));
+        Map<String, Integer> expected = countsOf(manager.getSnapshot());
+        Map<String, Integer> actual = countsOf(reloaded.getSnapshot());
+        if (!expected.equals(actual)) failures.add("journal replay differs from memory: " + expected + " vs " + actual);
+    }
+
+    /** Task count per category, enough to tell a replay that lost or doubled a change. */
+    private static Map<String, Integer> countsOf(TreeSnapshot snapshot) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (TreeSnapshot.CategoryNode c : snapshot.getCategories()) {
+            counts.merge(c.getName() + "#" + c.getId(), c.getTaskCount(), Integer::sum);
+        }
+        return counts;
+    }
+
+    // a second repository on the same files must not start while the first one is still compacting
+    private void awaitCompaction(String path) {
+        File compacting = new File(path + ".journal.compacting");
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (compacting.exists()) {
+            if (System.nanoTime() - deadline > 0) {
+                failures.add("journal compaction did not finish");
+                return;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static String stackOf(Thread t) {
+        StringBuilder sb = new StringBuilder();
+        for (StackTraceElement e : t.getStackTrace()) sb.append(System.lineSeparator()).append("    ").append(e);
+        return sb.toString();
+    }
+}
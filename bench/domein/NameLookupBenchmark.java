@@ -0,0 +1,145 @@
+package domein;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import repo.CategoryRepository;
+
+/**
+ * Name lookups and duplicate checks through the hash indexes of {@link CategoryManager}, against
+ * the linear scans they replaced, kept here as a reference. Three tree shapes of the same size
+ * show where the scans hurt: many categories, wide categories and deep subjects. The duplicate
+ * columns time a rejected addTask, building the task and the exception included, on both sides.
+ *
+ * <pre>
+ * javac -d bin $(find src/domein src/repo -name '*.java')
+ * javac -cp bin -d bench-bin bench/domein/NameLookupBenchmark.java
+ * java -Xmx2g -cp bin:bench-bin domein.NameLookupBenchmark [lookups]
+ * </pre>
+ */
+public class NameLookupBenchmark {
+
+    private static final int[][] SHAPES = { { 1000, 10, 10 }, { 10, 1000, 10 }, { 10, 10, 1000 } };
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        System.out.printf("%d lookups per round, best of %d, ns per call%n", lookups, ROUNDS);
+        System.out.printf("%-22s %14s %14s %14s %14s%n", "categories x subj x tasks",
+                "linear find", "indexed find", "linear dup", "indexed dup");
+        for (int[] shape : SHAPES) {
+            CategoryManager manager = populate(shape[0], shape[1], shape[2]);
+            // the old manager walked its own list; copy it once so the scans do not pay for getCategories()
+            List<Category> categories = manager.getCategories();
+            String[][] keys = keys(categories, lookups);
+            long[] linearFind = { Long.MAX_VALUE };
+            long[] indexedFind = { Long.MAX_VALUE };
+            long[] linearDup = { Long.MAX_VALUE };
+            long[] indexedDup = { Long.MAX_VALUE };
+            for (int round = 0; round < ROUNDS; round++) {
+                linearFind[0] = Math.min(linearFind[0], time(keys, k -> findLinear(categories, k[0], k[1], k[2]) != null));
+                indexedFind[0] = Math.min(indexedFind[0], time(keys, k -> manager.getTaskByName(k[0], k[1], k[2]) != null));
+                linearDup[0] = Math.min(linearDup[0], time(keys, k -> isDuplicateLinear(categories, k[0], k[1], k[2])));
+                indexedDup[0] = Math.min(indexedDup[0], time(keys, k -> isDuplicateIndexed(manager, k[0], k[1], k[2])));
+            }
+            System.out.printf("%-22s %14.0f %14.0f %14.0f %14.0f%n", shape[0] + " x " + shape[1] + " x " + shape[2],
+                    linearFind[0] / (double) lookups, indexedFind[0] / (double) lookups,
+                    linearDup[0] / (double) lookups, indexedDup[0] / (double) lookups);
+        }
+    }
+
+    private interface Probe {
+        boolean hit(String[] key);
+    }
+
+    private static long time(String[][] keys, Probe probe) {
+        long start = System.nanoTime();
+        int hits = 0;
+        for (String[] key : keys) {
+            if (probe.hit(key)) hits++;
+        }
+        long nanos = System.nanoTime() - start;
+        if (hits != keys.length) throw new IllegalStateException("Only " + hits + " of " + keys.length + " keys found");
+        return nanos;
+    }
+
+    private static CategoryManager populate(int categories, int subjects, int tasks) throws Exception {
+        File dir = Files.createTempDirectory("kairos-lookup").toFile();
+        CategoryManager manager = new CategoryManager(new CategoryRepository(new File(dir, "Category.json").getPath()));
+        manager.enableWriteBehind(Duration.ofSeconds(1), Duration.ofSeconds(10));
+        manager.batch(tx -> {
+            for (int c = 0; c < categories; c++) {
+                tx.addCategory(new Category("Category " + c));
+                for (int s = 0; s < subjects; s++) {
+                    tx.addSubject("Category " + c, new Subject("Subject " + s));
+                    for (int t = 0; t < tasks; t++) {
+                        tx.addTask("Category " + c, "Subject " + s, new Task("Task " + t, "", Difficulty.EASY, null));
+                    }
+                }
+            }
+        });
+        return manager;
+    }
+
+    /** Random existing (category, subject, task) names, fresh String copies so no lookup hits on identity. */
+    private static String[][] keys(List<Category> categories, int count) {
+        Random random = new Random(1);
+        String[][] keys = new String[count][];
+        for (int i = 0; i < count; i++) {
+            Category c = categories.get(random.nextInt(categories.size()));
+            Subject s = c.getSubjects().get(random.nextInt(c.getSubjects().size()));
+            Task t = s.getTasks().get(random.nextInt(s.getTasks().size()));
+            keys[i] = new String[] { new String(c.getName()), new String(s.getName()), new String(t.getName()) };
+        }
+        return keys;
+    }
+
+    // --- Indexed ---
+    // addTask rejects the duplicate before anything changes, so the tree stays as it was
+    private static boolean isDuplicateIndexed(CategoryManager manager, String category, String subject, String task) {
+        try {
+            manager.addTask(category, subject, new Task(task, "", Difficulty.EASY, null));
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    // --- Linear reference ---
+    /** getTaskByName as it was: walk categories, then subjects, then tasks, comparing names. */
+    private static Task findLinear(List<Category> categories, String category, String subject, String task) {
+        for (Category c : categories) {
+            if (!c.getName().equals(category)) continue;
+            for (Subject s : c.getSubjects()) {
+                if (!s.getName().equals(subject)) continue;
+                for (Task t : s.getTasks()) {
+                    if (t.getName().equals(task)) return t;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** addTask's rejection as it was: build the task, scan to its subject and tasks, throw on a match. */
+    private static boolean isDuplicateLinear(List<Category> categories, String category, String subject, String task) {
+        Task candidate = new Task(task, "", Difficulty.EASY, null);
+        try {
+            for (Category c : categories) {
+                if (!c.getName().equals(category)) continue;
+                for (Subject s : c.getSubjects()) {
+                    if (!s.getName().equals(subject)) continue;
+                    for (Task t : s.getTasks()) {
+                        if (t.getName().equals(candidate.getName()))
+                            throw new IllegalArgumentException("Task already exists: " + candidate.getName());
+                    }
+                }
+            }
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package domein;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import repo.CategoryRepository;
+
+/**
+ * Read throughput of {@link CategoryManager} by reader thread count, without the concurrency flag
+ * (one thread only) and with it. Three kinds of read are measured: an optimistic id lookup, a
+ * read-locked single-task view and a read-locked traversal of one subject. With {@code writer} a
+ * background thread edits tasks at full speed while the concurrent readers run; the plain row never
+ * has one, since without the flag the manager is meant for one thread.
+ *
+ * <pre>
+ * javac -d bin $(find src/domein src/repo -name '*.java')
+ * javac -cp bin -d bench-bin bench/domein/ReadScalingBenchmark.java
+ * java -cp bin:bench-bin domein.ReadScalingBenchmark [maxThreads] [writer]
+ * </pre>
+ */
+public class ReadScalingBenchmark {
+
+    private static final int CATEGORIES = 20;
+    private static final int SUBJECTS = 10;
+    private static final int TASKS = 100;
+    private static final long ROUND_MILLIS = 1500;
+    private static final int ROUNDS = 3;
+
+    private enum Op { TASK_BY_ID, TASK_VIEW, SUBJECT_VIEWS }
+
+    public static void main(String[] args) throws Exception {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, cpus * 2);
+        boolean writer = args.length > 1 && args[1].equals("writer");
+        System.out.printf("%d CPU(s), %d x %d x %d tasks, best of %d x %d ms%s%n", cpus, CATEGORIES, SUBJECTS, TASKS,
+                ROUNDS, ROUND_MILLIS, writer ? ", one writer editing tasks" : "");
+        System.out.printf("%-10s %7s  %14s %14s %14s%n", "mode", "threads", "getTaskById/s", "getTaskView/s", "getTaskViews/s");
+
+        CategoryManager plain = populate(false);
+        System.out.printf("%-10s %7d  %s%n", "plain", 1, row(plain, 1, false));
+        CategoryManager concurrent = populate(true);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            System.out.printf("%-10s %7d  %s%n", "concurrent", threads, row(concurrent, threads, writer));
+        }
+    }
+
+    private static CategoryManager populate(boolean concurrent) throws Exception {
+        File dir = Files.createTempDirectory("kairos-bench").toFile();
+        CategoryManager manager = new CategoryManager(new CategoryRepository(new File(dir, "Category.json").getPath()), concurrent);
+        manager.enableWriteBehind(Duration.ofMillis(50), Duration.ofSeconds(1));
+        manager.batch(tx -> {
+            for (int c = 0; c < CATEGORIES; c++) {
+                tx.addCategory(new Category("C" + c));
+                for (int s = 0; s < SUBJECTS; s++) {
+                    tx.addSubject("C" + c, new Subject("S" + s));
+                    for (int t = 0; t < TASKS; t++) {
+                        tx.addTask("C" + c, "S" + s, new Task("T" + t, "task " + t, Difficulty.values()[t % 3], null));
+                    }
+                }
+            }
+        });
+        return manager;
+    }
+
+    private static String row(CategoryManager manager, int threads, boolean writer) throws InterruptedException {
+        StringBuilder sb = new StringBuilder();
+        for (Op op : Op.values()) sb.append(String.format("%,14.0f ", best(manager, op, threads, writer)));
+        return sb.toString();
+    }
+
+    private static double best(CategoryManager manager, Op op, int threads, boolean writer) throws InterruptedException {
+        long[] ids = new long[CATEGORIES * SUBJECTS * TASKS];
+        int n = 0;
+        for (Category c : manager.getCategories()) {
+            for (Subject s : c.getSubjects()) {
+                for (Task t : s.getTasks()) ids[n++] = t.getId();
+            }
+        }
+        double best = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            AtomicBoolean stop = new AtomicBoolean();
+            AtomicLong done = new AtomicLong();
+            List<Thread> readers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                readers.add(new Thread(() -> {
+                    ThreadLocalRandom r = ThreadLocalRandom.current();
+                    long count = 0;
+                    while (!stop.get()) {
+                        switch (op) {
+                            case TASK_BY_ID -> manager.getTaskById(ids[r.nextInt(ids.length)]);
+                            case TASK_VIEW -> manager.getTaskView(ids[r.nextInt(ids.length)]);
+                            case SUBJECT_VIEWS -> manager.getTaskViews("C" + r.nextInt(CATEGORIES), "S" + r.nextInt(SUBJECTS));
+                        }
+                        count++;
+                    }
+                    done.addAndGet(count);
+                }));
+            }
+            Thread edits = writer ? new Thread(() -> {
+                Random r = new Random(1);
+                while (!stop.get()) {
+                    long id = ids[r.nextInt(ids.length)];
+                    Task t = manager.getTaskById(id);
+                    if (t != null) manager.editTask(id, new Task(t.getName(), "edited " + r.nextInt(), t.getDifficulty(), null));
+                }
+            }) : null;
+            readers.forEach(Thread::start);
+            if (edits != null) edits.start();
+            Thread.sleep(ROUND_MILLIS);
+            stop.set(true);
+            for (Thread t : readers) t.join();
+            if (edits != null) edits.join();
+            best = Math.max(best, done.get() * 1000.0 / ROUND_MILLIS);
+        }
+        return best;
+    }
+}
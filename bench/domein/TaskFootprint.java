@@ -0,0 +1,101 @@
+package domein;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Heap bytes per task, before and after the compact Task layout, in the spirit of a JOL footprint
+ * report: each row allocates a million instances, keeps them reachable and divides the growth of
+ * the used heap after GC. The old layout is reproduced field for field by {@link LegacyTask}.
+ * Names and descriptions are allocated up front so only the task structure is counted. Run with
+ * SerialGC so the used-heap figure is exact after a full collection.
+ *
+ * <pre>
+ * javac -d bin $(find src/domein src/repo -name '*.java')
+ * javac -cp bin -d bench-bin bench/domein/TaskFootprint.java
+ * java -XX:+UseSerialGC -Xmx2g -cp bin:bench-bin domein.TaskFootprint [tasks]
+ * </pre>
+ */
+public class TaskFootprint {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++) names[i] = "Task " + i;
+        // every task gets its own due date object, as a load parses one per task
+        LocalDateTime due = LocalDateTime.now().plusDays(30);
+        Difficulty[] difficulties = Difficulty.values();
+
+        System.out.printf("%,d instances per row; mix: 1/3 with a due date, 1/10 with one link, 1/4 completed%n", n);
+        System.out.printf("%-44s %12s%n", "row", "bytes each");
+        row("before: Task, mix", n, i -> {
+            LegacyTask t = new LegacyTask(names[i], "", difficulties[i % 3], i % 3 == 0 ? due.plusSeconds(i) : null);
+            if (i % 10 == 0) t.links.put("doc", "http://example.org");
+            if (i % 4 == 0) t.completed = true;
+            return t;
+        });
+        row("  shallow Task object", n, i -> new LegacyTask(names[i]));
+        row("  HashMap, empty (every task)", n, i -> new HashMap<String, String>());
+        row("  LocalDateTime (lastAccessed, 1/3 due)", n, i -> LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(i));
+        row("after: Task, mix", n, i -> {
+            Task t = new Task(names[i], "", difficulties[i % 3], i % 3 == 0 ? due.plusSeconds(i) : null);
+            if (i % 10 == 0) t.addLink("doc", "http://example.org");
+            if (i % 4 == 0) t.setCompleted(true);
+            return t;
+        });
+        row("  shallow Task object", n, i -> new Task(names[i], "", Difficulty.EASY, null));
+        row("  link pair array (1/10 of tasks)", n, i -> new String[] { "doc", "http://example.org" });
+    }
+
+    private static void row(String label, int n, IntFunction<Object> factory) {
+        Object[] keep = new Object[n];
+        for (int i = 0; i < 1000; i++) factory.apply(i);
+        long before = usedHeap();
+        for (int i = 0; i < n; i++) keep[i] = factory.apply(i);
+        long after = usedHeap();
+        System.out.printf("%-44s %12.1f%n", label, (after - before) / (double) n);
+        if (keep[n - 1] == null) throw new IllegalStateException();
+    }
+
+    // the first collection after a large row does not always settle, so collect until the figure holds
+    private static long usedHeap() {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            if (now == used) break;
+            used = now;
+        }
+        return used;
+    }
+
+    /** Task as it was laid out before: enum and boolean fields, a HashMap of links, two LocalDateTimes, parent names. */
+    @SuppressWarnings("unused")
+    private static final class LegacyTask {
+        private String name;
+        private String description;
+        private Difficulty difficulty;
+        private boolean completed;
+        private LocalDateTime dueDate;
+        private LocalDateTime lastAccessed;
+        private Map<String, String> links;
+        private String originalCategoryName;
+        private String originalSubjectName;
+
+        LegacyTask(String name, String description, Difficulty difficulty, LocalDateTime dueDate) {
+            this.name = name;
+            this.description = description;
+            this.difficulty = difficulty;
+            this.dueDate = dueDate;
+            this.lastAccessed = LocalDateTime.now();
+            this.links = new HashMap<>();
+        }
+
+        LegacyTask(String name) {
+            this.name = name;
+        }
+    }
+}
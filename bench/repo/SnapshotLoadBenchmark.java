@@ -0,0 +1,173 @@
+package repo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import domein.Category;
+import domein.Difficulty;
+import domein.Subject;
+import domein.Task;
+
+/**
+ * Load time and allocation per task of a text snapshot, for the byte-level {@link SnapshotScanner}
+ * behind {@link CategoryRepository#loadCategories()} and for the BufferedReader/split loader it
+ * replaced, kept here as a reference. Allocation is summed over every thread, so a parallel load
+ * counts its workers too. Both loaders must produce the same tree or the run fails.
+ *
+ * <pre>
+ * javac -d bin $(find src/domein src/repo -name '*.java')
+ * javac -cp bin -d bench-bin bench/repo/SnapshotLoadBenchmark.java
+ * java -Xmx3g -cp bin:bench-bin repo.SnapshotLoadBenchmark [tasks ...]
+ * </pre>
+ */
+public class SnapshotLoadBenchmark {
+
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[] { 10_000, 100_000, 1_000_000 };
+        for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+
+        System.out.printf("%9s  %-11s %11s %11s %13s%n", "tasks", "loader", "first ms", "best ms", "alloc/task B");
+        for (int size : sizes) {
+            File file = generate(size);
+            String split = run(size, "line-split", SnapshotLoadBenchmark::loadBySplitting, file);
+            String scanned = run(size, "scanner", f -> new CategoryRepository(f.getPath()).loadCategories(), file);
+            if (!split.equals(scanned)) throw new IllegalStateException("Loaders disagree at " + size + " tasks");
+            Files.delete(file.toPath());
+        }
+    }
+
+    /** Loads {@code file} {@link #ROUNDS} times, prints one row and returns a digest of the tree. */
+    private static String run(int size, String name, Function<File, List<Category>> loader, File file) {
+        long first = 0;
+        long best = Long.MAX_VALUE;
+        long allocated = Long.MAX_VALUE;
+        String digest = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            System.gc();
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            List<Category> loaded = loader.apply(file);
+            long nanos = System.nanoTime() - start;
+            allocated = Math.min(allocated, allocatedBytes() - bytes);
+            if (round == 0) first = nanos;
+            best = Math.min(best, nanos);
+            if (digest == null) digest = digest(loaded);
+        }
+        System.out.printf("%,9d  %-11s %11.0f %11.0f %13d%n", size, name, first / 1e6, best / 1e6, allocated / size);
+        return digest;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    // --- Data ---
+    /** A snapshot of {@code size} tasks in categories of 5 subjects x 20 tasks, with every field in use. */
+    private static File generate(int size) throws IOException {
+        String[] descriptions = { "", "simple", "with | bar and / slash", "ünïcödé ✓", "100% + plus & amp, comma -> arrow" };
+        List<Category> categories = new ArrayList<>();
+        int t = 0;
+        for (int c = 0; t < size; c++) {
+            Category category = new Category("Category " + c);
+            categories.add(category);
+            for (int s = 0; s < 5 && t < size; s++) {
+                Subject subject = new Subject("Subject " + s);
+                category.addSubject(subject);
+                for (int k = 0; k < 20 && t < size; k++, t++) {
+                    Task task = new Task("Task " + t, descriptions[t % descriptions.length], Difficulty.values()[t % 3], null);
+                    if (t % 2 == 0) task.restoreDueDate(LocalDateTime.of(2030, 1 + t % 12, 1 + t % 28, t % 24, t % 60));
+                    task.setCompleted(t % 3 == 0);
+                    task.setLastAccessed(LocalDateTime.of(2025, 9, 21, 22, t % 60, 41));
+                    if (t % 4 == 0) task.addLink("doc " + t, "http://example.org/?q=" + t + "&a=b,c");
+                    subject.addTask(task);
+                }
+            }
+        }
+        File file = File.createTempFile("kairos-load-", ".json");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            CategoryRepository.writeSnapshot(channel, categories, 0, SnapshotFormat.TEXT);
+        }
+        return file;
+    }
+
+    private static String digest(List<Category> categories) {
+        long hash = 17;
+        int tasks = 0;
+        for (Category c : categories) {
+            hash = hash * 31 + c.getName().hashCode();
+            for (Subject s : c.getSubjects()) {
+                hash = hash * 31 + s.getName().hashCode();
+                for (Task t : s.getTasks()) {
+                    tasks++;
+                    hash = hash * 31 + (t.getName() + '|' + t.getDescription() + '|' + t.getDifficulty() + '|' + t.getDueDate()
+                            + '|' + t.isCompleted() + '|' + t.getLastAccessed() + '|' + t.getLinks()).hashCode();
+                }
+            }
+        }
+        return tasks + ":" + hash;
+    }
+
+    // --- Reference loader ---
+    /** The line-by-line loader from before SnapshotScanner: trim, split on '|' and "->", URLDecoder, LocalDateTime.parse. */
+    private static List<Category> loadBySplitting(File file) {
+        List<Category> loaded = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            Category currentCategory = null;
+            Subject currentSubject = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("#Category:")) {
+                    currentCategory = new Category(line.substring(10));
+                    loaded.add(currentCategory);
+                } else if (line.startsWith("##Subject:")) {
+                    if (currentCategory != null) {
+                        currentSubject = new Subject(line.substring(10));
+                        currentCategory.addSubject(currentSubject);
+                    }
+                } else if (line.startsWith("###Task:") && currentSubject != null) {
+                    String[] parts = line.substring(8).split("\\|", -1);
+                    if (parts.length < 6) continue;
+                    String description = parts[1].isEmpty() ? "" : URLDecoder.decode(parts[1], StandardCharsets.UTF_8);
+                    Task task = new Task(parts[0], description, Difficulty.valueOf(parts[2]), null);
+                    if (!parts[3].isBlank()) task.restoreDueDate(LocalDateTime.parse(parts[3], formatter));
+                    task.setCompleted(Boolean.parseBoolean(parts[4]));
+                    task.setLastAccessed(LocalDateTime.parse(parts[5], formatter));
+                    if (parts.length >= 7 && !parts[6].isBlank()) {
+                        for (String pair : parts[6].split(",", -1)) {
+                            String[] kv = pair.split("->", 2);
+                            if (kv.length == 2) {
+                                task.addLink(URLDecoder.decode(kv[0], StandardCharsets.UTF_8), URLDecoder.decode(kv[1], StandardCharsets.UTF_8));
+                            }
+                        }
+                    }
+                    currentSubject.addTask(task);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + file, e);
+        }
+        return loaded;
+    }
+}
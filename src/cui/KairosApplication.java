@@ -7,9 +7,15 @@ import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Function;
 
 import domein.Difficulty;
 import domein.CategoryController;
+import domein.CategoryStats;
+import domein.Page;
+import domein.Subject;
+import domein.Task;
+import domein.TaskView;
 
 public class KairosApplication {
     private final CategoryController dc;
@@ -30,7 +36,9 @@ public class KairosApplication {
                 case 1 -> categoryMenu();
                 case 2 -> subjectMenu();
                 case 3 -> taskMenu();
-                case 4 -> {
+                case 4 -> searchTasks();
+                case 5 -> showSummary();
+                case 6 -> {
                     System.out.println("Exiting...");
                     running = false;
                 }
@@ -45,6 +53,8 @@ public class KairosApplication {
             "Manage categories",
             "Manage subjects",
             "Manage tasks",
+            "Search tasks",
+            "Show summary",
             "Back"
         };
         return makeChoice("Main Menu", options);
@@ -178,6 +188,33 @@ public class KairosApplication {
         return choice;
     }
 
+    // -------- PAGING HELPER --------
+    private static final int PAGE_SIZE = 20;
+
+    /** Prints a listing one page at a time, asking before each further page. */
+    private <T> void printPaged(Function<String, Page<T>> fetch, String emptyMessage) {
+        printPaged(fetch, String::valueOf, emptyMessage);
+    }
+
+    private <T> void printPaged(Function<String, Page<T>> fetch, Function<T, String> format, String emptyMessage) {
+        String cursor = null;
+        int index = 1;
+        while (true) {
+            Page<T> page = fetch.apply(cursor);
+            if (index == 1 && page.getItems().isEmpty()) {
+                System.out.println(emptyMessage);
+                return;
+            }
+            for (T item : page.getItems()) {
+                System.out.printf("%d. %s%n", index++, format.apply(item));
+            }
+            cursor = page.getNextCursor();
+            if (cursor == null) return;
+            System.out.print("Press Enter for more, or q to stop: ");
+            if (input.nextLine().trim().equalsIgnoreCase("q")) return;
+        }
+    }
+
     private String[] toLines(String display) {
         if (display == null || display.isBlank()) return new String[0];
         String[] raw = display.split("\\R");
@@ -190,7 +227,10 @@ public class KairosApplication {
     }
 
     private String chooseDisplayLine(String title, String displayLines) {
-        String[] items = toLines(displayLines);
+        return chooseItem(title, toLines(displayLines));
+    }
+
+    private String chooseItem(String title, String[] items) {
         if (items.length == 0) {
             System.out.println("No " + title.toLowerCase() + " available.");
             return null;
@@ -223,35 +263,6 @@ public class KairosApplication {
         return idx == -1 ? line : line.substring(0, idx);
     }
 
-    private String extractTaskNameFromDisplay(String displayLine) {
-        if (displayLine == null) return null;
-
-        int nameIndex = displayLine.indexOf("name='");
-        if (nameIndex != -1) {
-            int start = nameIndex + "name='".length();
-            int end = displayLine.indexOf("'", start);
-            if (end > start) return displayLine.substring(start, end);
-        }
-        String trimmed = displayLine.trim();
-        if (trimmed.matches("^\\d+\\.\\s+.*$")) {
-            int dot = trimmed.indexOf('.');
-            String remainder = trimmed.substring(dot + 1).trim();
-
-            int idx2 = remainder.indexOf("name='");
-            if (idx2 != -1) {
-                int start = idx2 + "name='".length();
-                int end = remainder.indexOf("'", start);
-                if (end > start) return remainder.substring(start, end);
-            }
-
-            int idx = indexOfFirst(remainder, " (", " [", " | ");
-            return idx == -1 ? remainder : remainder.substring(0, idx).trim();
-        }
-
-        int idx = indexOfFirst(trimmed, " (", " [", " | ");
-        return idx == -1 ? trimmed : trimmed.substring(0, idx).trim();
-    }
-
     private int indexOfFirst(String s, String... patterns) {
         int min = -1;
         for (String p : patterns) {
@@ -273,14 +284,27 @@ public class KairosApplication {
         return selectedLine == null ? null : extractNameFromDisplay(selectedLine);
     }
 
+    // collects names page by page, so a lazily loaded subject is not decoded just to pick from it
     private String chooseTask(String categoryName, String subjectName) {
-        String selectedLine = chooseDisplayLine("Tasks in " + subjectName, dc.tasksToString(categoryName, subjectName));
-        return selectedLine == null ? null : extractTaskNameFromDisplay(selectedLine);
+        List<String> names = new ArrayList<>();
+        try {
+            String cursor = null;
+            do {
+                Page<TaskView> page = dc.listTasks(categoryName, subjectName, cursor, PAGE_SIZE);
+                for (TaskView t : page.getItems()) names.add(t.getName());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            return null;
+        }
+        return chooseItem("Tasks in " + subjectName, names.toArray(new String[0]));
     }
 
     // -------- CATEGORY FUNCTIONS --------
     private void showCategories() {
-        System.out.println(dc.categoriesToString());
+        System.out.println("\n=== Categories ===");
+        printPaged(cursor -> dc.listCategories(cursor, PAGE_SIZE), "No categories available.");
     }
 
     private void makeNewCategory() {
@@ -323,16 +347,11 @@ public class KairosApplication {
         String categoryName = chooseCategory();
         if (categoryName == null) return;
 
-        String subjectsDisplay = dc.subjectsToString(categoryName);
-        String[] lines = toLines(subjectsDisplay);
-
         System.out.println("\n=== Subjects in '" + categoryName + "' ===");
-        if (lines.length == 0) {
-            System.out.println("No subjects in '" + categoryName + "'.");
-            return;
-        }
-        for (String line : lines) {
-            System.out.println(line);
+        try {
+            printPaged(cursor -> dc.listSubjects(categoryName, cursor, PAGE_SIZE), "No subjects in '" + categoryName + "'.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
         }
     }
 
@@ -377,6 +396,45 @@ public class KairosApplication {
         }
     }
 
+    // -------- SUMMARY --------
+    private void showSummary() {
+        CategoryStats stats = dc.getStats();
+        System.out.println("\n=== Summary ===");
+        System.out.printf("Categories: %d, subjects: %d, tasks: %d%n",
+                stats.getCategoryCount(), stats.getSubjectCount(), stats.getTaskCount());
+        System.out.printf("Pending: %d, completed: %d, overdue: %d%n",
+                stats.getPendingCount(), stats.getCompletedCount(), stats.getOverdueCount());
+        for (Difficulty d : Difficulty.values()) {
+            System.out.printf("%s: %d%n", d, stats.getTaskCount(d));
+        }
+    }
+
+    // -------- SEARCH --------
+    private void searchTasks() {
+        System.out.print("Search (words are combined, use OR for alternatives and * for prefixes): ");
+        String query = input.nextLine();
+        try {
+            List<Task> results = dc.searchTasks(query);
+            String title = "Results for '" + query.trim() + "'";
+            if (results.isEmpty()) {
+                System.out.println("No tasks match '" + query.trim() + "'.");
+                results = dc.fuzzySearchTasks(query, 5);
+                if (results.isEmpty()) return;
+                title = "Did you mean";
+            }
+            System.out.println("\n=== " + title + " ===");
+            int index = 1;
+            for (Task t : results) {
+                Subject s = t.getSubject();
+                System.out.printf("%d. %s (%s / %s)%n", index++, t.getName(),
+                        s != null && s.getCategory() != null ? s.getCategory().getName() : "?",
+                        s != null ? s.getName() : "?");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
     // -------- TASK FUNCTIONS --------
     private void showTasks() {
         String categoryName = chooseCategory();
@@ -384,19 +442,24 @@ public class KairosApplication {
         String subjectName = chooseSubject(categoryName);
         if (subjectName == null) return;
 
-        String tasksDisplay = dc.tasksToString(categoryName, subjectName);
-        String[] lines = toLines(tasksDisplay);
-
         System.out.println("\n=== Tasks in '" + subjectName + "' (Category: '" + categoryName + "') ===");
-        if (lines.length == 0) {
-            System.out.println("No tasks in '" + subjectName + "'.");
-            return;
-        }
-        for (String line : lines) {
-            System.out.println(line);
+        try {
+            printPaged(cursor -> dc.listTasks(categoryName, subjectName, cursor, PAGE_SIZE), this::formatTask, "No tasks in '" + subjectName + "'.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
         }
     }
 
+    // the same fields Task.toString prints; only the tasks on the current page are decoded
+    private String formatTask(TaskView t) {
+        String due = t.getDueDate() == null ? "none" : t.getDueDate().format(DateTimeFormatter.ofPattern("dd-MM-yy HH:mm"));
+        StringBuilder links = new StringBuilder();
+        t.getLinks().forEach((name, url) -> links.append(name).append(" -> ").append(url).append("; "));
+        return String.format("Task[name='%s', description='%s', difficulty=%s, due=%s, completed=%b%s, category='%s', subject='%s']",
+                t.getName(), t.getDescription(), t.getDifficulty(), due, t.isCompleted(),
+                links.length() > 0 ? " | Links: " + links : "", t.getCategoryName(), t.getSubjectName());
+    }
+
     private void makeNewTask() {
         String categoryName = chooseCategory();
         if (categoryName == null) return;
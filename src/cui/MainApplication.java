@@ -1,16 +1,26 @@
 package cui;
 
+import java.time.Duration;
 import java.util.Scanner;
 
 import domein.CategoryController;
 import domein.HabitController;
+import repo.CategoryRepository;
 
 public class MainApplication {
+    private final CategoryController categoryController;
     private KairosApplication taskApp;
     private HabitTrackerApplication habitApp;
 
     public MainApplication() {
-        taskApp = new KairosApplication(new CategoryController());
+        CategoryRepository repo = new CategoryRepository();
+        // the menus list names first; details are decoded when a task is actually shown
+        repo.setLazyDetails(true);
+        categoryController = new CategoryController(repo);
+        categoryController.enableWriteBehind(Duration.ofMillis(250), Duration.ofSeconds(2));
+        // the writer is a daemon: without this, EOF, bad input or Ctrl-C would drop the edits still pending
+        Runtime.getRuntime().addShutdownHook(new Thread(categoryController::flush, "kairos-flush-on-exit"));
+        taskApp = new KairosApplication(categoryController);
         habitApp = new HabitTrackerApplication(new HabitController());
     }
 
@@ -33,6 +43,7 @@ public class MainApplication {
                 case 2 -> habitApp.start();
                 case 3 -> {
                     System.out.println("Exiting...");
+                    categoryController.flush();
                     running = false;
                 }
                 default -> System.out.println("Invalid choice, try again.");
@@ -2,31 +2,109 @@ package domein;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Category {
+    private long id;
     private String name;
     private final List<Subject> subjects;
+    private final List<Subject> subjectsView;
+    private final Map<String, Subject> subjectsByName = new HashMap<>();
+    private CategoryManager manager;
+    private int taskCount;
+    private boolean dirty = true;
+    // snapshot node shared until something in this category changes
+    TreeSnapshot.CategoryNode node;
 
     public Category(String name) {
         setName(name);
         this.subjects = new ArrayList<>();
+        this.subjectsView = Collections.unmodifiableList(subjects);
     }
 
     public void addSubject(Subject subject) {
+        addSubject(subjects.size(), subject);
+    }
+
+    /** Inserts {@code subject} at {@code index}; used to put a removed subject back where it was. */
+    void addSubject(int index, Subject subject) {
         if (subject == null) {
             throw new IllegalArgumentException("Subject cannot be null.");
         }
-        subjects.add(subject);
+        subjects.add(index, subject);
+        subject.attach(this);
+        subjectsByName.putIfAbsent(subject.getName(), subject);
+        taskCount += subject.getTasks().size();
+        dirty = true;
+        touched();
+        if (manager != null) manager.subjectAttached(subject);
     }
 
     public boolean removeSubject(Subject subject) {
         if (subject == null) return false;
-        return subjects.remove(subject);
+        int index = -1;
+        for (int i = 0; i < subjects.size() && index < 0; i++) {
+            if (subjects.get(i) == subject) index = i;
+        }
+        if (index < 0) return false;
+        Subject removed = subjects.remove(index);
+        if (removed.getCategory() == this) removed.attach(null);
+        unindex(removed, removed.getName());
+        taskCount -= removed.getTasks().size();
+        dirty = true;
+        touched();
+        if (manager != null) manager.subjectDetached(removed);
+        return true;
+    }
+
+    /** Looks a subject up by name; with duplicate names the first one added wins. */
+    public Subject getSubject(String subjectName) {
+        return subjectsByName.get(subjectName);
+    }
+
+    void subjectRenamed(Subject subject, String oldName) {
+        unindex(subject, oldName);
+        subjectsByName.putIfAbsent(subject.getName(), subject);
+        if (manager != null) manager.subjectRenamed(subject);
+    }
+
+    private void unindex(Subject subject, String name) {
+        if (subjectsByName.get(name) != subject) return;
+        subjectsByName.remove(name);
+        for (Subject s : subjects) {
+            if (s.getName().equals(name)) {
+                subjectsByName.put(name, s);
+                break;
+            }
+        }
+    }
+
+    /** Number of tasks across all subjects, kept up to date as tasks come and go. */
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    void taskCountChanged(int delta) {
+        taskCount += delta;
+    }
+
+    void touched() {
+        node = null;
+        if (manager != null) manager.treeChanged();
+    }
+
+    CategoryManager getManager() {
+        return manager;
+    }
+
+    void attach(CategoryManager manager) {
+        this.manager = manager;
     }
 
     public List<Subject> getSubjects() {
-        return Collections.unmodifiableList(subjects);
+        return subjectsView;
     }
 
     public void showSubjects() {
@@ -40,6 +118,22 @@ public class Category {
         }
     }
 
+    /** Stable id, unique within the manager and kept across renames and restarts; 0 until first attached. */
+    public long getId() {
+        return id;
+    }
+
+    /** Sets the id this category was stored with; loaders call this before the category is attached. */
+    public void restoreId(long id) {
+        if (id < 0) throw new IllegalArgumentException("Id cannot be negative.");
+        this.id = id;
+    }
+
+    void assignId(long id) {
+        this.id = id;
+        dirty = true;
+    }
+
     public String getName() {
         return name;
     }
@@ -48,7 +142,25 @@ public class Category {
         if (name == null || name.isBlank()) {
             throw new IllegalArgumentException("Category name cannot be null or blank.");
         }
+        String oldName = this.name;
         this.name = name;
+        dirty = true;
+        touched();
+        if (manager != null && !name.equals(oldName)) manager.categoryRenamed(this, oldName);
+    }
+
+    /** True when the category or anything below it changed since it was last loaded or saved. */
+    public boolean isDirty() {
+        if (dirty) return true;
+        for (Subject s : subjects) {
+            if (s.isDirty()) return true;
+        }
+        return false;
+    }
+
+    public void clearDirty() {
+        dirty = false;
+        for (Subject s : subjects) s.clearDirty();
     }
 
     @Override
@@ -1,6 +1,13 @@
 package domein;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import repo.CategoryRepository;
 
 public class CategoryController {
     private CategoryManager catMan;
@@ -9,11 +16,55 @@ public class CategoryController {
         catMan = new CategoryManager();
     }
 
+    public CategoryController(CategoryRepository repo) {
+        catMan = new CategoryManager(repo);
+    }
+
+    /** With {@code concurrent} set, the controller may be shared by the UI and background threads. */
+    public CategoryController(CategoryRepository repo, boolean concurrent) {
+        catMan = new CategoryManager(repo, concurrent);
+    }
+
+    // --- Persistence ---
+    public void enableWriteBehind(Duration debounce, Duration maxStaleness) {
+        catMan.enableWriteBehind(debounce, maxStaleness);
+    }
+
+    public void flush() {
+        catMan.flush();
+    }
+
+    /** Runs the controller calls made by {@code work} as one batch: all applied and journaled once, or none. */
+    public void batch(Runnable work) {
+        catMan.batch(tx -> work.run());
+    }
+
+    // --- Change events ---
+    public void addChangeListener(ChangeListener listener) {
+        catMan.addChangeListener(listener);
+    }
+
+    public void addChangeListener(ChangeListener listener, Executor executor) {
+        catMan.addChangeListener(listener, executor);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        catMan.removeChangeListener(listener);
+    }
+
+    public void setChangeExecutor(Executor executor) {
+        catMan.setChangeExecutor(executor);
+    }
+
     // --- Category operations ---
     public String categoriesToString() {
         return catMan.categoriesToString();
     }
 
+    public Page<CategoryView> listCategories(String cursor, int pageSize) {
+        return catMan.listCategories(cursor, pageSize);
+    }
+
     public void addCategory(String categoryName) {
         catMan.addCategory(new Category(categoryName));
     }
@@ -31,6 +82,10 @@ public class CategoryController {
         return catMan.subjectsToString(categoryName);
     }
 
+    public Page<SubjectView> listSubjects(String categoryName, String cursor, int pageSize) {
+        return catMan.listSubjects(categoryName, cursor, pageSize);
+    }
+
     public void addSubject(String categoryName, String subjectName) {
         catMan.addSubject(categoryName, new Subject(subjectName));
     }
@@ -48,6 +103,10 @@ public class CategoryController {
         return catMan.tasksToString(categoryName, subjectName);
     }
 
+    public Page<TaskView> listTasks(String categoryName, String subjectName, String cursor, int pageSize) {
+        return catMan.listTasks(categoryName, subjectName, cursor, pageSize);
+    }
+
     public void addTask(String categoryName, String subjectName, String taskName, String description, Difficulty difficulty, LocalDateTime dueDate) {
         catMan.addTask(categoryName, subjectName, new Task(taskName, description, difficulty, dueDate));
     }
@@ -60,37 +119,124 @@ public class CategoryController {
     public void removeTask(String categoryName, String subjectName, String taskName) {
         catMan.removeTask(categoryName, subjectName, taskName);
     }
+
+    public void editTask(long taskId, String newName, String newDescription, Difficulty newDifficulty, LocalDateTime newDueDate) {
+        catMan.editTask(taskId, new Task(newName, newDescription, newDifficulty, newDueDate));
+    }
+
+    public void removeTask(long taskId) {
+        catMan.removeTask(taskId);
+    }
     
     public Task getRandomTask() {
 		return catMan.getRandomTask();
 	}
 
+    public Task getWeightedRandomTask() {
+        return catMan.getWeightedRandomTask();
+    }
+
+    public List<Task> searchTasks(String query) {
+        return catMan.searchTasks(query);
+    }
+
+    public List<Task> fuzzySearchTasks(String query, int limit) {
+        return catMan.fuzzySearchTasks(query, limit);
+    }
+
+    public List<String> suggestCategories(String name, int limit) {
+        return catMan.suggestCategories(name, limit);
+    }
+
+    public List<String> suggestSubjects(String categoryName, String name, int limit) {
+        return catMan.suggestSubjects(categoryName, name, limit);
+    }
+
+    public List<Task> getTasksByDifficulty(Difficulty difficulty) {
+        return catMan.getTasksByDifficulty(difficulty);
+    }
+
+    /** Tasks matching every non-null filter, e.g. HARD and pending in one category. */
+    public List<Task> findTasks(String categoryName, Difficulty difficulty, Boolean completed) {
+        return catMan.findTasks(categoryName, difficulty, completed);
+    }
+
+    public List<Task> query(TaskQuery query) {
+        return catMan.query(query);
+    }
+
+    public String explain(TaskQuery query) {
+        return catMan.explain(query);
+    }
+
+    public CategoryStats getStats() {
+        return catMan.getStats();
+    }
+
+    /** Task count per category name, in category order. */
+    public Map<String, Integer> getTaskCountsByCategory() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (TreeSnapshot.CategoryNode c : catMan.getSnapshot().getCategories()) counts.merge(c.getName(), c.getTaskCount(), Integer::sum);
+        return counts;
+    }
+
+    public List<Task> getOverdueTasks() {
+        return catMan.getOverdueTasks();
+    }
+
+    public List<Task> getTasksDueBetween(LocalDateTime from, LocalDateTime to) {
+        return catMan.getTasksDueBetween(from, to);
+    }
+
+    public List<Task> getUpcomingTasks(int count) {
+        return catMan.getUpcomingTasks(count);
+    }
+
+    // --- Typed views ---
+    /** Immutable picture of everything, safe to keep and read from any thread. */
+    public TreeSnapshot getSnapshot() {
+        return catMan.getSnapshot();
+    }
+
+    public List<CategoryView> getCategoryViews() {
+        return catMan.getCategoryViews();
+    }
+
+    public List<SubjectView> getSubjectViews(String categoryName) {
+        return catMan.getSubjectViews(categoryName);
+    }
+
+    public List<TaskView> getTaskViews(String categoryName, String subjectName) {
+        return catMan.getTaskViews(categoryName, subjectName);
+    }
+
+    public TaskView getTaskView(String categoryName, String subjectName, String taskName) {
+        return catMan.getTaskView(categoryName, subjectName, taskName);
+    }
+
+    public TaskView getTaskView(long taskId) {
+        return catMan.getTaskView(taskId);
+    }
+
     // --- Link operations ---
     public void addTaskLink(String categoryName, String subjectName, String taskName, String linkName, String url) {
         if (linkName == null || linkName.isBlank() || url == null || url.isBlank()) {
             throw new IllegalArgumentException("Link name and URL cannot be blank.");
         }
-        Task task = catMan.getTaskByName(categoryName, subjectName, taskName);
-        if (task != null) {
-            task.addLink(linkName, url);
-            catMan.save();
-        }
+        catMan.addTaskLink(categoryName, subjectName, taskName, linkName, url);
     }
 
     public void removeTaskLink(String categoryName, String subjectName, String taskName, String linkName) {
-        Task task = catMan.getTaskByName(categoryName, subjectName, taskName);
-        if (task != null) {
-            task.removeLink(linkName);
-            catMan.save();
-        }
+        catMan.removeTaskLink(categoryName, subjectName, taskName, linkName);
     }
 
     public String getTaskLinks(String categoryName, String subjectName, String taskName) {
-        Task task = catMan.getTaskByName(categoryName, subjectName, taskName);
-        if (task == null || task.getLinks().isEmpty()) return "No links for this task.";
+        TaskView task = catMan.getTaskView(categoryName, subjectName, taskName);
+        Map<String, String> links = task != null ? task.getLinks() : Map.of();
+        if (links.isEmpty()) return "No links for this task.";
 
         StringBuilder sb = new StringBuilder();
-        task.getLinks().forEach((name, url) -> sb.append(name).append(" -> ").append(url).append(System.lineSeparator()));
+        links.forEach((name, url) -> sb.append(name).append(" -> ").append(url).append(System.lineSeparator()));
         return sb.toString();
     }
 }
@@ -1,307 +1,763 @@
 package domein;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
 import java.util.function.DoubleToIntFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import repo.CategoryRepository;
-
+import repo.Mutation;
+
+/**
+ * Owns the category tree and every index over it. By default it is meant for one thread. Created
+ * with {@code concurrent} set, each public method runs under a StampedLock: lookups by id first try an
+ * optimistic stamp and only fall back to a read lock when a writer got in between, other reads take a
+ * read lock, and mutations and reads that fill lazy indexes take the write lock. Domain objects handed out by the getters
+ * must then be treated as read-only; changes go through this class.
+ */
 public class CategoryManager {
 
+    // how long a reader holds back at most; past it the reader barges, so a nested read cannot deadlock
+    private static final long WRITER_GATE_NANOS = 2_000_000;
+
     private final CategoryRepository repo;
     private final List<Category> categories;
+    private final Map<String, Category> categoriesByName = new HashMap<>();
+    private final LongMap<Category> categoriesById = new LongMap<>();
+    private final LongMap<Subject> subjectsById = new LongMap<>();
+    private final LongMap<Task> tasksById = new LongMap<>();
+    // one counter for all three kinds; after a restart it continues above the highest stored id
+    private long lastId;
+    private final DueDateIndex dueDates = new DueDateIndex();
+    private final TaskFacetIndex facets = new TaskFacetIndex();
+    private final TaskSampler sampler = new TaskSampler();
+    private LocalDateTime weighedAt = LocalDateTime.now();
+    private int subjectCount;
+    // built on the first search so a lazy load is not hydrated up front
+    private TextIndex text;
+    private FuzzyNameIndex fuzzy;
+    private final QueryPlanner planner = new QueryPlanner(this);
+    private final ChangeBus changes = new ChangeBus();
+    private final StampedLock lock;
+    // StampedLock lets new readers overtake a queued writer, so readers hold back while this is non-zero
+    private final AtomicInteger waitingWriters = new AtomicInteger();
+    // the thread running a batch already holds the write lock, and StampedLock is not reentrant
+    private volatile Thread batchOwner;
+    private Transaction openBatch;
+    // last published tree; rebuilt on demand once a change marks it stale
+    private volatile TreeSnapshot tree;
+    private volatile boolean treeStale = true;
 
     public CategoryManager() {
-        repo = new CategoryRepository();
+        this(new CategoryRepository());
+    }
+
+    public CategoryManager(CategoryRepository repo) {
+        this(repo, false);
+    }
+
+    public CategoryManager(CategoryRepository repo, boolean concurrent) {
+        this.repo = repo;
+        this.lock = concurrent ? new StampedLock() : null;
         categories = repo.loadCategories();
+        for (Category c : categories) {
+            lastId = Math.max(lastId, c.getId());
+            for (Subject s : c.getSubjects()) {
+                lastId = Math.max(lastId, s.getId());
+                for (Task t : s.getTasks()) lastId = Math.max(lastId, t.getId());
+            }
+        }
+        for (Category c : categories) index(c);
+    }
+
+    /** The id {@code entity} should carry: its own unless it has none or another entity holds it. */
+    private long idFor(Object entity, long id) {
+        if (id == 0) return ++lastId;
+        Object holder = categoriesById.get(id);
+        if (holder == null) holder = subjectsById.get(id);
+        if (holder == null) holder = tasksById.get(id);
+        if (holder != null && holder != entity) return ++lastId;
+        lastId = Math.max(lastId, id);
+        return id;
     }
 
-    private void validateName(String name, String type) {
-        if (name == null || name.isBlank()) {
-            throw new IllegalArgumentException(type + " name cannot be empty");
+    private void index(Category category) {
+        treeStale = true;
+        category.attach(this);
+        long id = idFor(category, category.getId());
+        if (id != category.getId()) category.assignId(id);
+        categoriesById.put(id, category);
+        categoriesByName.putIfAbsent(category.getName(), category);
+        if (fuzzy != null) fuzzy.put(category, category.getName());
+        for (Subject s : category.getSubjects()) subjectAttached(s);
+    }
+
+    private void unindex(Category category) {
+        treeStale = true;
+        category.attach(null);
+        if (categoriesById.get(category.getId()) == category) categoriesById.remove(category.getId());
+        if (fuzzy != null) fuzzy.remove(category);
+        for (Subject s : category.getSubjects()) subjectDetached(s);
+    }
+
+    // Called by Subject and Category whenever something enters, leaves or changes inside this manager.
+    void treeChanged() {
+        treeStale = true;
+    }
+
+    void subjectAttached(Subject subject) {
+        subjectCount++;
+        long id = idFor(subject, subject.getId());
+        if (id != subject.getId()) subject.assignId(id);
+        subjectsById.put(id, subject);
+        if (fuzzy != null) fuzzy.put(subject, subject.getName());
+        for (Task t : subject.getTasks()) taskAttached(t);
+    }
+
+    void subjectDetached(Subject subject) {
+        subjectCount--;
+        if (subjectsById.get(subject.getId()) == subject) subjectsById.remove(subject.getId());
+        if (fuzzy != null) fuzzy.remove(subject);
+        for (Task t : subject.getTasks()) taskDetached(t);
+    }
+
+    void subjectRenamed(Subject subject) {
+        if (fuzzy != null) fuzzy.put(subject, subject.getName());
+    }
+
+    void taskAttached(Task task) {
+        long id = idFor(task, task.getId());
+        if (id != task.getId()) task.assignId(id);
+        tasksById.put(id, task);
+        dueDates.update(task);
+        facets.add(task);
+        sampler.add(task);
+        if (text != null) text.add(task);
+        if (fuzzy != null) fuzzy.put(task, task.getName());
+    }
+
+    void taskDetached(Task task) {
+        if (tasksById.get(task.getId()) == task) tasksById.remove(task.getId());
+        dueDates.remove(task);
+        facets.remove(task);
+        sampler.remove(task);
+        if (text != null) text.remove(task);
+        if (fuzzy != null) fuzzy.remove(task);
+    }
+
+    void taskChanged(Task task) {
+        dueDates.update(task);
+        facets.update(task);
+        sampler.update(task);
+        if (text != null) text.add(task);
+        if (fuzzy != null) fuzzy.put(task, task.getName());
+    }
+
+    void categoryRenamed(Category category, String oldName) {
+        releaseName(category, oldName);
+        categoriesByName.putIfAbsent(category.getName(), category);
+        if (fuzzy != null) fuzzy.put(category, category.getName());
+    }
+
+    // Hands name over to the next category still carrying it if {@code category} owned it.
+    private void releaseName(Category category, String name) {
+        if (categoriesByName.get(name) != category) return;
+        categoriesByName.remove(name);
+        for (Category c : categories) {
+            if (c.getName().equals(name)) {
+                categoriesByName.put(name, c);
+                break;
+            }
+        }
+    }
+
+    // --- Locking ---
+    public boolean isConcurrent() {
+        return lock != null;
+    }
+
+    /**
+     * Runs {@code body} on an optimistic stamp. If a writer intervened the result, or any exception a torn
+     * view caused, is discarded and the body runs again under a read lock. Only for bodies that copy a field
+     * or probe a {@link LongMap}: walking a HashMap, TreeMap or list mid-write may loop or fail in ways no
+     * retry can recover from.
+     */
+    private <T> T optimistic(Supplier<T> body) {
+        if (lock == null || batchOwner == Thread.currentThread()) return body.get();
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = body.get();
+                if (lock.validate(stamp)) return result;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+        stamp = readLock();
+        try {
+            return body.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Runs {@code body} under a read lock; anything that traverses a collection or has outside effects. */
+    private <T> T read(Supplier<T> body) {
+        if (lock == null || batchOwner == Thread.currentThread()) return body.get();
+        long stamp = readLock();
+        try {
+            return body.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T write(Supplier<T> body) {
+        if (lock == null || batchOwner == Thread.currentThread()) return body.get();
+        long stamp;
+        waitingWriters.incrementAndGet();
+        try {
+            stamp = lock.writeLock();
+        } finally {
+            waitingWriters.decrementAndGet();
+        }
+        try {
+            return body.get();
+        } finally {
+            lock.unlockWrite(stamp);
         }
     }
 
+    private long readLock() {
+        if (waitingWriters.get() > 0) {
+            long deadline = System.nanoTime() + WRITER_GATE_NANOS;
+            while (waitingWriters.get() > 0 && System.nanoTime() - deadline < 0) Thread.yield();
+        }
+        return lock.readLock();
+    }
+
+    private void write(Runnable body) {
+        write(() -> {
+            body.run();
+            return null;
+        });
+    }
+
+    // Unlocked lookups for use inside a locked section; StampedLock is not reentrant.
+    Category category(String name) {
+        return categoriesByName.get(name);
+    }
+
+    Subject subject(String categoryName, String subjectName) {
+        Category cat = categoriesByName.get(categoryName);
+        return cat != null ? cat.getSubject(subjectName) : null;
+    }
+
+    Task task(String categoryName, String subjectName, String taskName) {
+        Subject subj = subject(categoryName, subjectName);
+        return subj != null ? subj.getTask(taskName) : null;
+    }
+
+    Category categoryById(long id) {
+        return categoriesById.get(id);
+    }
+
+    Subject subjectById(long id) {
+        return subjectsById.get(id);
+    }
+
+    Task taskById(long id) {
+        return tasksById.get(id);
+    }
+
+    // --- Batches ---
+    /**
+     * Runs {@code work} as one atomic batch under the write lock. Its changes are journaled with a
+     * single append when it returns; if it throws, they are undone in reverse order and nothing is
+     * journaled. Mutators called from inside {@code work}, including nested batches, join it. The
+     * change listeners hear about a committed batch once the lock is released.
+     */
+    public void batch(Consumer<Transaction> work) {
+        if (batchOwner == Thread.currentThread()) {
+            work.accept(openBatch);
+            return;
+        }
+        write(() -> {
+            Transaction tx = new Transaction(this, changes.hasListeners());
+            openBatch = tx;
+            batchOwner = Thread.currentThread();
+            try {
+                work.accept(tx);
+            } catch (RuntimeException | Error e) {
+                tx.rollback(e);
+                throw e;
+            } finally {
+                batchOwner = null;
+                openBatch = null;
+            }
+            List<Mutation> mutations = tx.commit();
+            if (!mutations.isEmpty()) repo.recordAll(mutations);
+            if (!tx.events().isEmpty()) changes.enqueue(tx.events());
+        });
+        changes.dispatch();
+    }
+
+    // --- Change events ---
+    /** Delivers the events of every committed batch to {@code listener} on the default executor. */
+    public void addChangeListener(ChangeListener listener) {
+        changes.add(listener, null);
+    }
+
+    /** Delivers the events of every committed batch to {@code listener} on {@code executor}, e.g. a UI thread. */
+    public void addChangeListener(ChangeListener listener, Executor executor) {
+        if (executor == null) throw new IllegalArgumentException("Executor cannot be null.");
+        changes.add(listener, executor);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changes.remove(listener);
+    }
+
+    /** Executor for listeners registered without one; by default they run on the thread that committed. */
+    public void setChangeExecutor(Executor executor) {
+        changes.setDefaultExecutor(executor);
+    }
+
+    int categoryCount() {
+        return categories.size();
+    }
+
+    Category categoryAt(int index) {
+        return categories.get(index);
+    }
+
+    void insertCategory(int index, Category category) {
+        categories.add(index, category);
+        index(category);
+    }
+
+    void removeCategoryAt(int index) {
+        Category category = categories.remove(index);
+        unindex(category);
+        releaseName(category, category.getName());
+    }
+
     // --- Category operations ---
     public void addCategory(Category category) {
-        validateName(category.getName(), "Category");
-        if (getCategoryByName(category.getName()) != null)
-            throw new IllegalArgumentException("Category already exists: " + category.getName());
-        categories.add(category);
-        save();
+        batch(tx -> tx.addCategory(category));
     }
 
     public void removeCategory(String name) {
-        validateName(name, "Category");
-        categories.removeIf(c -> c.getName().equals(name));
-        save();
+        batch(tx -> tx.removeCategory(name));
     }
 
     public void editCategory(String oldName, String newName) {
-        validateName(oldName, "Category");
-        validateName(newName, "Category");
-        Category cat = getCategoryByName(oldName);
-        if (cat != null) {
-            if (getCategoryByName(newName) != null)
-                throw new IllegalArgumentException("Category already exists: " + newName);
-            cat.setName(newName);
-            save();
-        }
+        batch(tx -> tx.editCategory(oldName, newName));
     }
 
     public Category getCategoryByName(String name) {
-        for (Category c : categories) {
-            if (c.getName().equals(name)) return c;
-        }
-        return null;
+        return read(() -> category(name));
+    }
+
+    public Category getCategoryById(long id) {
+        return optimistic(() -> categoriesById.get(id));
+    }
+
+    public void editCategory(long id, String newName) {
+        batch(tx -> tx.editCategory(id, newName));
     }
 
     public List<Category> getCategories() {
-        return new ArrayList<>(categories);
+        return read(() -> new ArrayList<>(categories));
+    }
+
+    /**
+     * An immutable snapshot of the current tree. While nothing changed this is a volatile read; after
+     * a change only the categories, subjects and tasks on the changed paths are copied again.
+     */
+    public TreeSnapshot getSnapshot() {
+        TreeSnapshot current = tree;
+        if (current != null && !treeStale) return current;
+        return write(() -> {
+            if (tree == null || treeStale) {
+                treeStale = false;
+                tree = TreeSnapshot.of(categories);
+            }
+            return tree;
+        });
     }
 
     // --- Subject operations ---
     public void addSubject(String categoryName, Subject subject) {
-        validateName(categoryName, "Category");
-        validateName(subject.getName(), "Subject");
-        Category cat = getCategoryByName(categoryName);
-        if (cat == null) throw new IllegalArgumentException("Category not found: " + categoryName);
-        for (Subject s : cat.getSubjects()) {
-            if (s.getName().equals(subject.getName()))
-                throw new IllegalArgumentException("Subject already exists: " + subject.getName());
-        }
-        cat.addSubject(subject);
-        save();
+        batch(tx -> tx.addSubject(categoryName, subject));
     }
 
     public void removeSubject(String categoryName, String subjectName) {
-        validateName(categoryName, "Category");
-        validateName(subjectName, "Subject");
-        Category cat = getCategoryByName(categoryName);
-        if (cat == null) return;
+        batch(tx -> tx.removeSubject(categoryName, subjectName));
+    }
 
-        try {
-            boolean removed = cat.getSubjects().removeIf(s -> s.getName().equals(subjectName));
-            if (removed) {
-                save();
-                return;
-            }
-        } catch (UnsupportedOperationException ignored) {
+    public void editSubject(String categoryName, String oldName, String newName) {
+        batch(tx -> tx.editSubject(categoryName, oldName, newName));
     }
 
-        int idx = categories.indexOf(cat);
-        if (idx >= 0) {
-            Category rebuilt = new Category(cat.getName());
-            for (Subject s : cat.getSubjects()) {
-                if (!s.getName().equals(subjectName)) {
-                    rebuilt.addSubject(s);
-                }
-            }
-            categories.set(idx, rebuilt);
-            save();
-        }
+    public Subject getSubjectByName(String categoryName, String subjectName) {
+        return read(() -> subject(categoryName, subjectName));
     }
 
-    public void editSubject(String categoryName, String oldName, String newName) {
-        validateName(categoryName, "Category");
-        validateName(oldName, "Subject");
-        validateName(newName, "Subject");
-        Category cat = getCategoryByName(categoryName);
-        if (cat != null) {
-            Subject target = null;
-            for (Subject s : cat.getSubjects()) {
-                if (s.getName().equals(oldName)) target = s;
-                if (s.getName().equals(newName))
-                    throw new IllegalArgumentException("Subject already exists: " + newName);
-            }
-            if (target != null) {
-                target.setName(newName);
-                save();
-            }
-        }
+    public Subject getSubjectById(long id) {
+        return optimistic(() -> subjectsById.get(id));
     }
 
-    public Subject getSubjectByName(String categoryName, String subjectName) {
-        Category cat = getCategoryByName(categoryName);
-        if (cat != null) {
-            for (Subject s : cat.getSubjects()) {
-                if (s.getName().equals(subjectName)) return s;
-            }
-        }
-        return null;
+    public void editSubject(long id, String newName) {
+        batch(tx -> tx.editSubject(id, newName));
+    }
+
+    public void removeSubject(long id) {
+        batch(tx -> tx.removeSubject(id));
     }
 
     // --- Task operations ---
 
     public void addTask(String categoryName, String subjectName, Task task) {
-        validateName(categoryName, "Category");
-        validateName(subjectName, "Subject");
-        validateName(task.getName(), "Task");
-        Subject subj = getSubjectByName(categoryName, subjectName);
-        if (subj == null) throw new IllegalArgumentException("Subject not found: " + subjectName);
-        for (Task t : subj.getTasks()) {
-            if (t.getName().equals(task.getName()))
-                throw new IllegalArgumentException("Task already exists: " + task.getName());
-        }
-        subj.addTask(task);
-        save();
+        batch(tx -> tx.addTask(categoryName, subjectName, task));
     }
 
     public void removeTask(String categoryName, String subjectName, String taskName) {
-        validateName(categoryName, "Category");
-        validateName(subjectName, "Subject");
-        validateName(taskName, "Task");
-        Subject subj = getSubjectByName(categoryName, subjectName);
-        if (subj != null) {
-            Task toRemove = null;
-            for (Task t : subj.getTasks()) {
-                if (t.getName().equals(taskName)) {
-                    toRemove = t;
-                    break;
-                }
-            }
-            if (toRemove != null) {
-                subj.removeTask(toRemove);
-                save();
-            }
-        }
+        batch(tx -> tx.removeTask(categoryName, subjectName, taskName));
     }
 
     public void editTask(String categoryName, String subjectName, String oldName, Task newTask) {
-        validateName(categoryName, "Category");
-        validateName(subjectName, "Subject");
-        validateName(oldName, "Task");
-        validateName(newTask.getName(), "Task");
-
-        Subject subj = getSubjectByName(categoryName, subjectName);
-        if (subj != null) {
-            Task target = null;
-            for (Task t : subj.getTasks()) {
-                if (t.getName().equals(oldName)) {
-                    target = t;
-                    break;
-                }
-            }
-            if (target == null) return;
+        batch(tx -> tx.editTask(categoryName, subjectName, oldName, newTask));
+    }
 
-            if (!oldName.equals(newTask.getName())) {
-                for (Task x : subj.getTasks()) {
-                    if (x.getName().equals(newTask.getName()))
-                        throw new IllegalArgumentException("Task already exists: " + newTask.getName());
-                }
-            }
-            target.setName(newTask.getName());
-            target.setDescription(newTask.getDescription());
-            target.setDifficulty(newTask.getDifficulty());
-            target.setDueDate(newTask.getDueDate());
-            target.setCompleted(newTask.isCompleted());
-            target.setLastAccessed(newTask.getLastAccessed());
-
-            save();
-        }
+    public void addTaskLink(String categoryName, String subjectName, String taskName, String linkName, String url) {
+        batch(tx -> tx.addTaskLink(categoryName, subjectName, taskName, linkName, url));
+    }
+
+    public void removeTaskLink(String categoryName, String subjectName, String taskName, String linkName) {
+        batch(tx -> tx.removeTaskLink(categoryName, subjectName, taskName, linkName));
     }
 
     public Task getTaskByName(String categoryName, String subjectName, String taskName) {
-        Subject subj = getSubjectByName(categoryName, subjectName);
-        if (subj != null) {
-            for (Task t : subj.getTasks()) {
-                if (t.getName().equals(taskName)) return t;
-            }
-        }
-        return null;
+        return read(() -> task(categoryName, subjectName, taskName));
+    }
+
+    public Task getTaskById(long id) {
+        return optimistic(() -> tasksById.get(id));
+    }
+
+    public void editTask(long id, Task newTask) {
+        batch(tx -> tx.editTask(id, newTask));
+    }
+
+    public void removeTask(long id) {
+        batch(tx -> tx.removeTask(id));
     }
 
     // --- Search ---
     public List<Task> getTasksByDifficulty(Difficulty difficulty) {
-        List<Task> result = new ArrayList<>();
-        for (Category c : categories) {
-            for (Subject s : c.getSubjects()) {
-                for (Task t : s.getTasks()) {
-                    if (t.getDifficulty() == difficulty) result.add(t);
+        return findTasks(null, difficulty, null);
+    }
+
+    /** Tasks matching every given filter; a null filter matches anything. */
+    public List<Task> findTasks(String categoryName, Difficulty difficulty, Boolean completed) {
+        return query(new TaskQuery().inCategory(categoryName).difficulty(difficulty).completed(completed));
+    }
+
+    /** Runs {@code query}, drawing candidates from whichever index the planner expects to be smallest. */
+    public List<Task> query(TaskQuery query) {
+        if (query == null) throw new IllegalArgumentException("Query cannot be null.");
+        // the first text query builds the text index, which needs exclusive access
+        return query.text != null && !hasTextIndex() ? write(() -> planner.execute(query)) : read(() -> planner.execute(query));
+    }
+
+    /** Describes the plan {@link #query} would use, with the candidate estimate of every source it weighed. */
+    public String explain(TaskQuery query) {
+        if (query == null) throw new IllegalArgumentException("Query cannot be null.");
+        return query.text != null && !hasTextIndex() ? write(() -> planner.explain(query)) : read(() -> planner.explain(query));
+    }
+
+    /**
+     * Full-text search over task names, descriptions and link names, best match first. Words are
+     * ANDed, OR separates alternatives and a trailing '*' matches a prefix.
+     */
+    public List<Task> searchTasks(String query) {
+        if (query == null || query.isBlank()) throw new IllegalArgumentException("Search query cannot be empty");
+        return hasTextIndex() ? read(() -> text.search(query)) : write(() -> textIndex().search(query));
+    }
+
+    private boolean hasTextIndex() {
+        return optimistic(() -> text != null);
+    }
+
+    TextIndex textIndex() {
+        if (text == null) {
+            text = new TextIndex();
+            for (Category c : categories) {
+                for (Subject s : c.getSubjects()) {
+                    for (Task t : s.getTasks()) text.add(t);
                 }
             }
         }
-        return result;
+        return text;
     }
 
-    public List<Task> getOverdueTasks() {
-        List<Task> result = new ArrayList<>();
-        LocalDateTime now = LocalDateTime.now();
-        for (Category c : categories) {
-            for (Subject s : c.getSubjects()) {
-                for (Task t : s.getTasks()) {
-                    if (!t.isCompleted() && t.getDueDate() != null && t.getDueDate().isBefore(now)) result.add(t);
+    // --- Fuzzy lookup ---
+    private FuzzyNameIndex fuzzy() {
+        if (fuzzy == null) {
+            fuzzy = new FuzzyNameIndex();
+            for (Category c : categories) {
+                fuzzy.put(c, c.getName());
+                for (Subject s : c.getSubjects()) {
+                    fuzzy.put(s, s.getName());
+                    for (Task t : s.getTasks()) fuzzy.put(t, t.getName());
                 }
             }
         }
-        return result;
+        return fuzzy;
+    }
+
+    /** Up to {@code limit} tasks whose names are closest to a possibly misspelled {@code query}. */
+    public List<Task> fuzzySearchTasks(String query, int limit) {
+        if (query == null || query.isBlank()) throw new IllegalArgumentException("Search query cannot be empty");
+        // the fuzzy index reuses scratch arrays, so even lookups are exclusive
+        return write(() -> fuzzy().suggest(query, Task.class, t -> true, limit));
+    }
+
+    public List<String> suggestCategories(String name, int limit) {
+        return write(() -> categorySuggestions(name, limit));
+    }
+
+    public List<String> suggestSubjects(String categoryName, String name, int limit) {
+        return write(() -> subjectSuggestions(categoryName, name, limit));
+    }
+
+    List<String> categorySuggestions(String name, int limit) {
+        List<String> names = new ArrayList<>();
+        if (name == null || name.isBlank()) return names;
+        for (Category c : fuzzy().suggest(name, Category.class, c -> c.getManager() == this, limit)) names.add(c.getName());
+        return names;
+    }
+
+    List<String> subjectSuggestions(String categoryName, String name, int limit) {
+        List<String> names = new ArrayList<>();
+        Category cat = category(categoryName);
+        if (cat == null || name == null || name.isBlank()) return names;
+        for (Subject s : fuzzy().suggest(name, Subject.class, s -> s.getCategory() == cat, limit)) names.add(s.getName());
+        return names;
+    }
+
+    static String didYouMean(List<String> names) {
+        if (names.isEmpty()) return "";
+        return ". Did you mean: " + String.join(", ", names) + "?";
+    }
+
+    /** Current totals in O(1); the overdue count only walks deadlines that passed since the last call. */
+    public CategoryStats getStats() {
+        // exclusive because the overdue count advances its frontier
+        return write(() -> new CategoryStats(categories.size(), subjectCount, sampler.size(), facets.completedCount(),
+                dueDates.overdueCount(LocalDateTime.now()), facets.difficultyCounts()));
+    }
+
+    /** Pending tasks whose due date has passed, earliest first. */
+    public List<Task> getOverdueTasks() {
+        return query(new TaskQuery().pending().dueBefore(LocalDateTime.now()).sortBy(TaskQuery.Sort.DUE_DATE, false));
+    }
+
+    /** Pending tasks due between {@code from} and {@code to} inclusive, earliest first. */
+    public List<Task> getTasksDueBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) throw new IllegalArgumentException("Date range cannot be null.");
+        return query(new TaskQuery().pending().dueBetween(from, to).sortBy(TaskQuery.Sort.DUE_DATE, false));
+    }
+
+    /** The next {@code count} pending deadlines from now on. */
+    public List<Task> getUpcomingTasks(int count) {
+        if (count < 0) throw new IllegalArgumentException("Count cannot be negative.");
+        return read(() -> dueDates.nextDue(LocalDateTime.now(), count));
     }
 
     public List<Task> getTasksForCategory(String categoryName) {
-        List<Task> result = new ArrayList<>();
-        Category c = getCategoryByName(categoryName);
-        if (c != null) {
-            for (Subject s : c.getSubjects()) {
-                result.addAll(s.getTasks());
-            }
-        }
-        return result;
+        if (categoryName == null) return new ArrayList<>();
+        return query(new TaskQuery().inCategory(categoryName));
     }
 
     public List<Task> getTasksForSubject(String categoryName, String subjectName) {
-        Subject s = getSubjectByName(categoryName, subjectName);
-        return s != null ? new ArrayList<>(s.getTasks()) : new ArrayList<>();
+        if (categoryName == null || subjectName == null) return new ArrayList<>();
+        return query(new TaskQuery().inSubject(categoryName, subjectName));
     }
     
+    // --- Planner access ---
+    DueDateIndex dueDates() {
+        return dueDates;
+    }
+
+    TaskFacetIndex facets() {
+        return facets;
+    }
+
+    int taskCount() {
+        return sampler.size();
+    }
+
+    /** Every task in hierarchy order, produced lazily so a limited scan can stop early. */
+    Iterable<Task> allTasks() {
+        return () -> categories.stream().flatMap(c -> c.getSubjects().stream()).flatMap(s -> s.getTasks().stream()).iterator();
+    }
+
     public Task getRandomTask() {
-        List<Task> allTasks = new ArrayList<>();
-        for (Category c : categories) {
-            for (Subject s : c.getSubjects()) {
-                allTasks.addAll(s.getTasks());
+        return optimistic(sampler::uniform);
+    }
+
+    /**
+     * A pending task picked with preference for harder, overdue and long-untouched ones, or null
+     * when every task is completed. Weights older than an hour are refreshed first.
+     */
+    public Task getWeightedRandomTask() {
+        return write(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (weighedAt.plusHours(1).isBefore(now)) {
+                sampler.reweighAll();
+                weighedAt = now;
             }
-        }
-        if (allTasks.isEmpty()) {
-            return null;
-        }
-        return allTasks.get((int) (Math.random() * allTasks.size()));
+            return sampler.weighted();
+        });
+    }
+
+    // --- Paged listing ---
+    /** Categories in list order, {@code pageSize} at a time; pass the previous page's cursor, or null to start. */
+    public Page<CategoryView> listCategories(String cursor, int pageSize) {
+        return read(() -> Page.of(categories, Category::getName, this::category, CategoryView::new, cursor, pageSize));
+    }
+
+    public Page<SubjectView> listSubjects(String categoryName, String cursor, int pageSize) {
+        Page<SubjectView> page = read(() -> {
+            Category c = category(categoryName);
+            return c == null ? null : Page.of(c.getSubjects(), Subject::getName, c::getSubject, SubjectView::new, cursor, pageSize);
+        });
+        if (page == null) throw new IllegalArgumentException("Category not found: " + categoryName + didYouMean(suggestCategories(categoryName, 3)));
+        return page;
+    }
+
+    /** Tasks of one subject in list order; only the tasks on the returned page are copied into views. */
+    public Page<TaskView> listTasks(String categoryName, String subjectName, String cursor, int pageSize) {
+        Page<TaskView> page = read(() -> {
+            Subject s = subject(categoryName, subjectName);
+            return s == null ? null : Page.of(s.getTasks(), Task::getName, s::getTask, TaskView::new, cursor, pageSize);
+        });
+        if (page == null) throw new IllegalArgumentException("Subject not found: " + subjectName + didYouMean(suggestSubjects(categoryName, subjectName, 3)));
+        return page;
+    }
+
+    // --- Typed views ---
+    public List<CategoryView> getCategoryViews() {
+        return read(() -> {
+            List<CategoryView> views = new ArrayList<>(categories.size());
+            for (Category c : categories) views.add(new CategoryView(c));
+            return views;
+        });
+    }
+
+    /** Views of the subjects in a category, or an empty list when the category does not exist. */
+    public List<SubjectView> getSubjectViews(String categoryName) {
+        return read(() -> {
+            List<SubjectView> views = new ArrayList<>();
+            Category c = category(categoryName);
+            if (c != null) {
+                for (Subject s : c.getSubjects()) views.add(new SubjectView(s));
+            }
+            return views;
+        });
+    }
+
+    /** Views of the tasks in a subject, or an empty list when the subject does not exist. */
+    public List<TaskView> getTaskViews(String categoryName, String subjectName) {
+        return read(() -> {
+            List<TaskView> views = new ArrayList<>();
+            Subject s = subject(categoryName, subjectName);
+            if (s != null) {
+                for (Task t : s.getTasks()) views.add(new TaskView(t));
+            }
+            return views;
+        });
+    }
+
+    public TaskView getTaskView(String categoryName, String subjectName, String taskName) {
+        return read(() -> {
+            Task t = task(categoryName, subjectName, taskName);
+            return t != null ? new TaskView(t) : null;
+        });
+    }
+
+    public TaskView getTaskView(long id) {
+        return read(() -> {
+            Task t = tasksById.get(id);
+            return t != null ? new TaskView(t) : null;
+        });
     }
 
     public String categoriesToString() {
-        StringBuilder sb = new StringBuilder();
-        for (Category c : categories) {
-            sb.append(c.getName()).append(" (Subjects: ").append(c.getSubjects().size()).append(")").append(System.lineSeparator());
-        }
-        return sb.toString();
+        return read(() -> {
+            StringBuilder sb = new StringBuilder();
+            for (Category c : categories) {
+                sb.append(c.getName()).append(" (Subjects: ").append(c.getSubjects().size()).append(")").append(System.lineSeparator());
+            }
+            return sb.toString();
+        });
     }
 
     public String subjectsToString(String categoryName) {
-        Category c = getCategoryByName(categoryName);
-        if (c == null) return "Category not found: " + categoryName;
-        StringBuilder sb = new StringBuilder();
-        for (Subject s : c.getSubjects()) {
-            sb.append(s.getName()).append(" (Tasks: ").append(s.getTasks().size()).append(")").append(System.lineSeparator());
-        }
-        return sb.toString();
+        String listing = read(() -> {
+            Category c = category(categoryName);
+            if (c == null) return null;
+            StringBuilder sb = new StringBuilder();
+            for (Subject s : c.getSubjects()) {
+                sb.append(s.getName()).append(" (Tasks: ").append(s.getTasks().size()).append(")").append(System.lineSeparator());
+            }
+            return sb.toString();
+        });
+        return listing != null ? listing : "Category not found: " + categoryName + didYouMean(suggestCategories(categoryName, 3));
     }
 
     public String tasksToString(String categoryName, String subjectName) {
-        Subject s = getSubjectByName(categoryName, subjectName);
-        if (s == null) return "Subject not found: " + subjectName;
-
-        StringBuilder sb = new StringBuilder();
-        int index = 1;
-        for (Task t : s.getTasks()) {
-            sb.append(index++)
-              .append(". ")
-              .append(t.toString())
-              .append(System.lineSeparator());
-        }
-        return sb.toString();
+        String listing = read(() -> {
+            Subject s = subject(categoryName, subjectName);
+            if (s == null) return null;
+            StringBuilder sb = new StringBuilder();
+            int index = 1;
+            for (Task t : s.getTasks()) {
+                sb.append(index++)
+                  .append(". ")
+                  .append(t.toString())
+                  .append(System.lineSeparator());
+            }
+            return sb.toString();
+        });
+        return listing != null ? listing : "Subject not found: " + subjectName + didYouMean(suggestSubjects(categoryName, subjectName, 3));
+    }
+
+    // --- Persistence ---
+    public void enableWriteBehind(Duration debounce, Duration maxStaleness) {
+        repo.enableWriteBehind(debounce, maxStaleness);
+    }
+
+    public void flush() {
+        repo.flush();
     }
 
     // --- Save all ---
+    /** Writes a full snapshot and clears the journal; regular mutations only append to the journal. */
     public void save() {
-        repo.saveCategories(categories);
+        read(() -> {
+            repo.saveCategories(categories);
+            return null;
+        });
     }
 }
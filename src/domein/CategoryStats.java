@@ -0,0 +1,37 @@
+package domein;
+
+import java.util.Arrays;
+
+/** Immutable point-in-time totals, assembled from counters CategoryManager keeps up to date. */
+public final class CategoryStats {
+    private final int categories;
+    private final int subjects;
+    private final int tasks;
+    private final int completed;
+    private final int overdue;
+    private final int[] byDifficulty;
+
+    CategoryStats(int categories, int subjects, int tasks, int completed, int overdue, int[] byDifficulty) {
+        this.categories = categories;
+        this.subjects = subjects;
+        this.tasks = tasks;
+        this.completed = completed;
+        this.overdue = overdue;
+        this.byDifficulty = byDifficulty.clone();
+    }
+
+    public int getCategoryCount() { return categories; }
+    public int getSubjectCount() { return subjects; }
+    public int getTaskCount() { return tasks; }
+    public int getCompletedCount() { return completed; }
+    public int getPendingCount() { return tasks - completed; }
+    /** Pending tasks whose due date had passed when this snapshot was taken. */
+    public int getOverdueCount() { return overdue; }
+    public int getTaskCount(Difficulty difficulty) { return byDifficulty[difficulty.ordinal()]; }
+
+    @Override
+    public String toString() {
+        return String.format("Stats[categories=%d, subjects=%d, tasks=%d, pending=%d, completed=%d, overdue=%d, byDifficulty=%s]",
+                categories, subjects, tasks, getPendingCount(), completed, overdue, Arrays.toString(byDifficulty));
+    }
+}
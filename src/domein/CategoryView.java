@@ -0,0 +1,26 @@
+package domein;
+
+/** Read-only copy of a category's name and sizes, taken when the view was created. */
+public final class CategoryView {
+    private final long id;
+    private final String name;
+    private final int subjectCount;
+    private final int taskCount;
+
+    CategoryView(Category category) {
+        this.id = category.getId();
+        this.name = category.getName();
+        this.subjectCount = category.getSubjects().size();
+        this.taskCount = category.getTaskCount();
+    }
+
+    public long getId() { return id; }
+    public String getName() { return name; }
+    public int getSubjectCount() { return subjectCount; }
+    public int getTaskCount() { return taskCount; }
+
+    @Override
+    public String toString() {
+        return name + " (Subjects: " + subjectCount + ")";
+    }
+}
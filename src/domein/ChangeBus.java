@@ -0,0 +1,73 @@
+package domein;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Hands committed batches to the registered listeners, each on its own executor. Batches are queued
+ * while the writer still holds the manager's lock, which fixes their order, and dispatched after it
+ * let go, so a listener running inline may read or even mutate the manager.
+ */
+class ChangeBus {
+
+    private record Registration(ChangeListener listener, Executor executor) {}
+
+    private final List<Registration> listeners = new CopyOnWriteArrayList<>();
+    private final Queue<List<ChangeEvent>> queue = new ConcurrentLinkedQueue<>();
+    private volatile Executor defaultExecutor = Runnable::run;
+    private boolean dispatching;
+
+    void setDefaultExecutor(Executor executor) {
+        if (executor == null) throw new IllegalArgumentException("Executor cannot be null.");
+        defaultExecutor = executor;
+    }
+
+    void add(ChangeListener listener, Executor executor) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null.");
+        listeners.add(new Registration(listener, executor));
+    }
+
+    void remove(ChangeListener listener) {
+        listeners.removeIf(r -> r.listener == listener);
+    }
+
+    boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /** Called under the manager's write lock. */
+    void enqueue(List<ChangeEvent> events) {
+        queue.add(List.copyOf(events));
+    }
+
+    /** Called after the write lock is released; a nested call from an inline listener leaves the work to the outer loop. */
+    synchronized void dispatch() {
+        if (dispatching) return;
+        dispatching = true;
+        try {
+            List<ChangeEvent> events;
+            while ((events = queue.poll()) != null) {
+                for (Registration r : listeners) {
+                    List<ChangeEvent> batch = events;
+                    Executor executor = r.executor != null ? r.executor : defaultExecutor;
+                    executor.execute(() -> deliver(r.listener, batch));
+                }
+            }
+        } finally {
+            dispatching = false;
+        }
+    }
+
+    // a failing listener must not keep the others from hearing about a change that already happened
+    private static void deliver(ChangeListener listener, List<ChangeEvent> events) {
+        try {
+            listener.changed(events);
+        } catch (RuntimeException e) {
+            Thread t = Thread.currentThread();
+            t.getUncaughtExceptionHandler().uncaughtException(t, e);
+        }
+    }
+}
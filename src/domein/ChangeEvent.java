@@ -0,0 +1,77 @@
+package domein;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One committed change to the tree. The path names where the entity is after the change, or where it
+ * was for a removal; {@link #getOldName()} holds the previous name of a renamed or edited entity. Task
+ * events carry views of the task before and after, so a listener can patch without reading back.
+ */
+public final class ChangeEvent {
+
+    public enum Kind { ADDED, RENAMED, REMOVED, UPDATED }
+    public enum Level { CATEGORY, SUBJECT, TASK }
+
+    private final Kind kind;
+    private final Level level;
+    private final long id;
+    private final String categoryName;
+    private final String subjectName;
+    private final String name;
+    private final String oldName;
+    private final TaskView before;
+    private final TaskView after;
+
+    private ChangeEvent(Kind kind, Level level, long id, String categoryName, String subjectName, String name,
+                        String oldName, TaskView before, TaskView after) {
+        this.kind = kind;
+        this.level = level;
+        this.id = id;
+        this.categoryName = categoryName;
+        this.subjectName = subjectName;
+        this.name = name;
+        this.oldName = oldName;
+        this.before = before;
+        this.after = after;
+    }
+
+    static ChangeEvent category(Kind kind, long id, String name, String oldName) {
+        return new ChangeEvent(kind, Level.CATEGORY, id, name, null, name, oldName, null, null);
+    }
+
+    static ChangeEvent subject(Kind kind, long id, String categoryName, String name, String oldName) {
+        return new ChangeEvent(kind, Level.SUBJECT, id, categoryName, name, name, oldName, null, null);
+    }
+
+    static ChangeEvent task(Kind kind, long id, String categoryName, String subjectName, String name, String oldName,
+                            TaskView before, TaskView after) {
+        return new ChangeEvent(kind, Level.TASK, id, categoryName, subjectName, name, oldName, before, after);
+    }
+
+    public Kind getKind() { return kind; }
+    public Level getLevel() { return level; }
+    /** Id of the changed category, subject or task; unlike its path it survives renames. */
+    public long getId() { return id; }
+    public String getCategoryName() { return categoryName; }
+    public String getSubjectName() { return subjectName; }
+    public String getName() { return name; }
+    public String getOldName() { return oldName; }
+    public TaskView getBefore() { return before; }
+    public TaskView getAfter() { return after; }
+
+    /** Category, subject and task name down to the changed entity. */
+    public List<String> getPath() {
+        List<String> path = new ArrayList<>(3);
+        path.add(categoryName);
+        if (level != Level.CATEGORY) path.add(subjectName);
+        if (level == Level.TASK) path.add(name);
+        return Collections.unmodifiableList(path);
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + level + " " + String.join("/", getPath()) + (oldName != null && !oldName.equals(name) ? " (was " + oldName + ")" : "");
+    }
+}
@@ -0,0 +1,9 @@
+package domein;
+
+import java.util.List;
+
+/** Receives the events of each committed batch, in commit order. */
+@FunctionalInterface
+public interface ChangeListener {
+    void changed(List<ChangeEvent> events);
+}
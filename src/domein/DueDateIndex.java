@@ -0,0 +1,114 @@
+package domein;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Pending tasks with a due date, ordered by that date. Completed and undated tasks are not stored,
+ * so range queries never visit them. The key each task was filed under is remembered so a changed
+ * due date can be moved.
+ */
+class DueDateIndex {
+
+    private final NavigableMap<LocalDateTime, List<Task>> byDue = new TreeMap<>();
+    private final Map<Task, LocalDateTime> indexedAt = new IdentityHashMap<>();
+    // number of indexed tasks due strictly before the frontier; the frontier only moves forward
+    private LocalDateTime frontier = LocalDateTime.MIN;
+    private int beforeFrontier;
+
+    /** Files, moves or drops {@code task} according to its current due date and completion. */
+    void update(Task task) {
+        LocalDateTime due = task.isCompleted() ? null : task.getDueDate();
+        LocalDateTime previous = indexedAt.get(task);
+        if (previous != null && previous.equals(due)) return;
+        if (previous != null) unlink(task, previous);
+        if (due != null) {
+            byDue.computeIfAbsent(due, d -> new ArrayList<>(1)).add(task);
+            indexedAt.put(task, due);
+            if (due.isBefore(frontier)) beforeFrontier++;
+        }
+    }
+
+    void remove(Task task) {
+        LocalDateTime previous = indexedAt.get(task);
+        if (previous != null) unlink(task, previous);
+    }
+
+    private void unlink(Task task, LocalDateTime key) {
+        indexedAt.remove(task);
+        if (key.isBefore(frontier)) beforeFrontier--;
+        List<Task> bucket = byDue.get(key);
+        if (bucket == null) return;
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) == task) {
+                bucket.remove(i);
+                break;
+            }
+        }
+        if (bucket.isEmpty()) byDue.remove(key);
+    }
+
+    /** The first {@code k} pending tasks due at or after {@code from}. */
+    List<Task> nextDue(LocalDateTime from, int k) {
+        return collect(byDue.tailMap(from, true), k);
+    }
+
+    /** Pending tasks due from {@code from} up to {@code to}; a null bound is open, {@code to} may be exclusive. */
+    List<Task> range(LocalDateTime from, LocalDateTime to, boolean toExclusive) {
+        NavigableMap<LocalDateTime, List<Task>> range = slice(from, to, toExclusive);
+        return range == null ? new ArrayList<>() : collect(range, Integer.MAX_VALUE);
+    }
+
+    /** Size of {@link #range}, counted no further than {@code cap}. */
+    int countRange(LocalDateTime from, LocalDateTime to, boolean toExclusive, int cap) {
+        NavigableMap<LocalDateTime, List<Task>> range = slice(from, to, toExclusive);
+        if (range == null) return 0;
+        int count = 0;
+        for (List<Task> bucket : range.values()) {
+            count += bucket.size();
+            if (count >= cap) return cap;
+        }
+        return count;
+    }
+
+    private NavigableMap<LocalDateTime, List<Task>> slice(LocalDateTime from, LocalDateTime to, boolean toExclusive) {
+        if (from != null && to != null) {
+            if (from.isAfter(to) || (toExclusive && !from.isBefore(to))) return null;
+            return byDue.subMap(from, true, to, !toExclusive);
+        }
+        if (from != null) return byDue.tailMap(from, true);
+        if (to != null) return byDue.headMap(to, !toExclusive);
+        return byDue;
+    }
+
+    /** Counts overdue tasks by advancing the frontier over the keys that expired since the last call. */
+    int overdueCount(LocalDateTime now) {
+        if (now.isBefore(frontier)) {
+            frontier = LocalDateTime.MIN;
+            beforeFrontier = 0;
+        }
+        for (List<Task> bucket : byDue.subMap(frontier, true, now, false).values()) beforeFrontier += bucket.size();
+        frontier = now;
+        return beforeFrontier;
+    }
+
+    int size() {
+        return indexedAt.size();
+    }
+
+    private static List<Task> collect(NavigableMap<LocalDateTime, List<Task>> range, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (List<Task> bucket : range.values()) {
+            for (Task t : bucket) {
+                if (result.size() >= limit) return result;
+                result.add(t);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,189 @@
+package domein;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Trigram index over category, subject and task names for typo-tolerant lookups. Candidates are the
+ * names sharing the most trigrams with the query; those are re-ranked by Levenshtein distance.
+ * Only the query's selective trigrams walk their postings; very common ones (" ta", "ask") are
+ * checked against the candidates already found. Removed or renamed entries leave a tombstone that
+ * the postings skip until the next compaction.
+ */
+class FuzzyNameIndex {
+
+    private static final int MAX_CANDIDATES = 200;
+
+    private Object[] items = new Object[64];
+    private String[] keys = new String[64];
+    private int[] counts = new int[64];
+    private int size;
+    private int dead;
+    private final Map<Object, Integer> idOf = new IdentityHashMap<>();
+    private final Map<String, IntList> postings = new HashMap<>();
+
+    /** Indexes {@code item} under {@code name}, replacing any earlier name. */
+    void put(Object item, String name) {
+        String key = normalize(name);
+        Integer id = idOf.get(item);
+        if (id != null) {
+            if (keys[id].equals(key)) return;
+            kill(id);
+        }
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        id = size++;
+        items[id] = item;
+        keys[id] = key;
+        idOf.put(item, id);
+        for (String gram : trigrams(key)) {
+            postings.computeIfAbsent(gram, g -> new IntList()).add(id);
+        }
+    }
+
+    void remove(Object item) {
+        Integer id = idOf.get(item);
+        if (id != null) kill(id);
+    }
+
+    private void kill(int id) {
+        idOf.remove(items[id]);
+        items[id] = null;
+        keys[id] = null;
+        if (++dead > 1024 && dead > size / 2) compact();
+    }
+
+    private void compact() {
+        Object[] liveItems = items;
+        String[] liveKeys = keys;
+        int liveSize = size;
+        items = new Object[Math.max(64, liveSize - dead)];
+        keys = new String[items.length];
+        size = 0;
+        dead = 0;
+        idOf.clear();
+        postings.clear();
+        for (int i = 0; i < liveSize; i++) {
+            if (liveItems[i] != null) put(liveItems[i], liveKeys[i]);
+        }
+    }
+
+    /**
+     * Up to {@code k} items of type {@code kind} accepted by {@code filter}, closest to {@code query}
+     * first. Items further than roughly a third of the query length in edit distance are dropped.
+     */
+    <T> List<T> suggest(String query, Class<T> kind, Predicate<T> filter, int k) {
+        String q = normalize(query);
+        List<String> grams = trigrams(q);
+        grams.removeIf(g -> !postings.containsKey(g));
+        grams.sort((a, b) -> postings.get(a).size - postings.get(b).size);
+        int common = Math.max(MAX_CANDIDATES, size / 16);
+        boolean anySelective = !grams.isEmpty() && postings.get(grams.get(0)).size <= common;
+
+        if (counts.length < size) counts = new int[items.length];
+        int[] touched = new int[64];
+        int touchedCount = 0;
+        for (String gram : grams) {
+            IntList ids = postings.get(gram);
+            if (anySelective && ids.size > common) {
+                for (int i = 0; i < touchedCount; i++) {
+                    if (hasGram(keys[touched[i]], gram)) counts[touched[i]]++;
+                }
+                continue;
+            }
+            for (int i = 0; i < ids.size; i++) {
+                int id = ids.values[i];
+                if (items[id] == null) continue;
+                if (counts[id]++ == 0) {
+                    if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                    touched[touchedCount++] = id;
+                }
+            }
+        }
+
+        List<int[]> candidates = new ArrayList<>();
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            Object item = items[id];
+            if (kind.isInstance(item) && filter.test(kind.cast(item))) candidates.add(new int[] { id, counts[id], 0 });
+            counts[id] = 0;
+        }
+        if (candidates.size() > MAX_CANDIDATES) {
+            candidates.sort((a, b) -> b[1] - a[1]);
+            candidates = new ArrayList<>(candidates.subList(0, MAX_CANDIDATES));
+        }
+
+        int limit = Math.max(2, q.length() / 3);
+        List<int[]> ranked = new ArrayList<>();
+        for (int[] c : candidates) {
+            c[2] = distance(q, keys[c[0]]);
+            if (c[2] <= limit) ranked.add(c);
+        }
+        ranked.sort((a, b) -> a[2] != b[2] ? a[2] - b[2] : b[1] - a[1]);
+
+        List<T> result = new ArrayList<>();
+        for (int i = 0; i < ranked.size() && result.size() < k; i++) result.add(kind.cast(items[ranked.get(i)[0]]));
+        return result;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Trigrams of the name padded with two leading blanks and one trailing blank. */
+    private static List<String> trigrams(String s) {
+        String padded = "  " + s + " ";
+        List<String> grams = new ArrayList<>(padded.length());
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            String gram = padded.substring(i, i + 3);
+            if (!grams.contains(gram)) grams.add(gram);
+        }
+        return grams;
+    }
+
+    /** Whether {@code gram} is one of the trigrams of {@code key}, padding included, without building the padded key. */
+    static boolean hasGram(String key, String gram) {
+        if (key.contains(gram)) return true;
+        boolean lead = gram.charAt(0) == ' ';
+        boolean trail = gram.charAt(2) == ' ';
+        if (gram.charAt(1) == ' ') return lead && !key.isEmpty() && key.charAt(0) == gram.charAt(2);
+        if (lead && key.startsWith(gram.substring(1))) return true;
+        if (trail && key.endsWith(gram.substring(0, 2))) return true;
+        return lead && trail && key.length() == 1 && key.charAt(0) == gram.charAt(1);
+    }
+
+    static int distance(String a, String b) {
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        return prev[b.length()];
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
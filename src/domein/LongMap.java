@@ -0,0 +1,121 @@
+package domein;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from positive long ids to values, with linear probing and no boxing. Key 0
+ * marks an empty slot. Removal shifts the following run back instead of leaving tombstones, so lookups
+ * stay short however many entities come and go.
+ */
+final class LongMap<V> {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private Object[] values;
+    private int shift;
+    private int size;
+
+    LongMap() {
+        this(16);
+    }
+
+    LongMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 3 / 2) - 1) << 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private int slot(long key) {
+        return (int) ((key * GOLDEN) >>> shift);
+    }
+
+    // probes with the table it read, so an optimistic reader racing a resize stays in bounds
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        long[] k = keys;
+        Object[] v = values;
+        int mask = k.length - 1;
+        for (int i = (int) ((key * GOLDEN) >>> (64 - Integer.numberOfTrailingZeros(k.length))); ; i = (i + 1) & mask) {
+            long found = k[i];
+            if (found == key) return (V) v[i];
+            if (found == 0) return null;
+        }
+    }
+
+    /** Maps {@code key} to {@code value} and returns the value it replaced, if any. */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key <= 0) throw new IllegalArgumentException("Id must be positive: " + key);
+        int mask = keys.length - 1;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            if (keys[i] == 0) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 3 > keys.length * 2) grow();
+                return null;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == 0) return null;
+            i = (i + 1) & mask;
+        }
+        V removed = (V) values[i];
+        // pull later entries of the run into the hole unless their home slot lies after it
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = 0;
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        long[] newKeys = new long[oldKeys.length * 2];
+        Object[] newValues = new Object[newKeys.length];
+        int newShift = shift - 1;
+        int mask = newKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key == 0) continue;
+            int i = (int) ((key * GOLDEN) >>> newShift);
+            while (newKeys[i] != 0) i = (i + 1) & mask;
+            newKeys[i] = key;
+            newValues[i] = oldValues[j];
+        }
+        values = newValues;
+        keys = newKeys;
+        shift = newShift;
+    }
+}
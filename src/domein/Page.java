@@ -0,0 +1,83 @@
+package domein;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a listing plus the cursor for the next one, or null on the last page. The cursor
+ * remembers the position and names of the last item handed out and the one after it, so a page
+ * fetched after inserts or removals continues from there instead of skipping or repeating items.
+ */
+public final class Page<T> {
+    private static final String SEPARATOR = "\u0000";
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    private Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasNext() { return nextCursor != null; }
+
+    /**
+     * Cuts the page that follows {@code cursor} (null for the first page) out of {@code source}.
+     * {@code byName} finds the remembered items again when they have moved; only the returned items are mapped.
+     */
+    static <E, V> Page<V> of(List<E> source, Function<E, String> name, Function<String, E> byName,
+                             Function<E, V> view, String cursor, int pageSize) {
+        if (pageSize <= 0) throw new IllegalArgumentException("Page size must be positive.");
+        int start = cursor == null ? 0 : resume(source, name, byName, cursor);
+        int end = Math.min(source.size(), start + pageSize);
+        List<V> items = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) items.add(view.apply(source.get(i)));
+        String next = end < source.size() ? encode(end, name.apply(source.get(end - 1)), name.apply(source.get(end))) : null;
+        return new Page<>(items, next);
+    }
+
+    private static <E> int resume(List<E> source, Function<E, String> name, Function<String, E> byName, String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        String[] parts = decoded.split(SEPARATOR, -1);
+        if (parts.length != 3) throw new IllegalArgumentException("Invalid cursor.");
+        int position;
+        try {
+            position = Integer.parseInt(parts[0]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+
+        // common case: nothing before the anchor changed
+        if (position > 0 && position <= source.size() && parts[1].equals(name.apply(source.get(position - 1)))) return position;
+        int after = indexOf(source, byName.apply(parts[1]));
+        if (after >= 0) return after + 1;
+        // the last item shown is gone, so continue at the one that was due next
+        int next = indexOf(source, byName.apply(parts[2]));
+        if (next >= 0) return next;
+        return Math.max(0, Math.min(position - 1, source.size()));
+    }
+
+    private static <E> int indexOf(List<E> source, E item) {
+        if (item == null) return -1;
+        for (int i = 0; i < source.size(); i++) {
+            if (source.get(i) == item) return i;
+        }
+        return -1;
+    }
+
+    private static String encode(int position, String anchor, String next) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((position + SEPARATOR + anchor + SEPARATOR + next).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,134 @@
+package domein;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chooses where the candidates of a {@link TaskQuery} come from: the subject or category itself, the
+ * due-date index, the text index, the facet bitsets or a full scan, whichever promises the fewest
+ * tasks. The remaining predicates are checked on each candidate while streaming.
+ */
+class QueryPlanner {
+
+    enum Source { SUBJECT, CATEGORY, DUE_INDEX, TEXT_INDEX, FACET_INDEX, SCAN }
+
+    private final CategoryManager manager;
+
+    QueryPlanner(CategoryManager manager) {
+        this.manager = manager;
+    }
+
+    static final class Plan {
+        Source source = Source.SCAN;
+        int estimate;
+        final Map<Source, Integer> considered = new LinkedHashMap<>();
+        Iterable<Task> candidates = List.of();
+        Set<Task> textMatches;
+        List<Task> ranked;
+        BitSet facetBits;
+
+        void consider(Source s, int estimate) {
+            considered.put(s, estimate);
+            if (considered.size() == 1 || estimate < this.estimate) {
+                source = s;
+                this.estimate = estimate;
+            }
+        }
+    }
+
+    Plan plan(TaskQuery q) {
+        Plan plan = new Plan();
+        plan.consider(Source.SCAN, manager.taskCount());
+
+        if (q.categoryName != null) {
+            Category cat = manager.category(q.categoryName);
+            if (cat == null) {
+                plan.consider(Source.CATEGORY, 0);
+            } else if (q.subjectName != null) {
+                Subject s = cat.getSubject(q.subjectName);
+                plan.consider(Source.SUBJECT, s == null ? 0 : s.getTasks().size());
+            } else {
+                plan.consider(Source.CATEGORY, cat.getTaskCount());
+            }
+        }
+        if (q.text != null) {
+            plan.ranked = manager.textIndex().search(q.text);
+            plan.textMatches = Collections.newSetFromMap(new IdentityHashMap<>());
+            plan.textMatches.addAll(plan.ranked);
+            plan.consider(Source.TEXT_INDEX, plan.ranked.size());
+        }
+        if (q.hasDueRange() && Boolean.FALSE.equals(q.completed)) {
+            plan.consider(Source.DUE_INDEX, manager.dueDates().countRange(q.dueFrom, q.dueTo, q.dueToExclusive, plan.estimate + 1));
+        }
+        if ((q.difficulty != null || q.completed != null) && plan.estimate > manager.taskCount() / 64) {
+            plan.facetBits = manager.facets().select(q.difficulty, q.completed);
+            plan.consider(Source.FACET_INDEX, plan.facetBits.cardinality());
+        }
+
+        plan.candidates = switch (plan.source) {
+            case SUBJECT -> {
+                Subject s = manager.subject(q.categoryName, q.subjectName);
+                yield s == null ? List.of() : s.getTasks();
+            }
+            case CATEGORY -> {
+                Category cat = manager.category(q.categoryName);
+                yield cat == null ? List.of() : tasksOf(cat);
+            }
+            case TEXT_INDEX -> plan.ranked;
+            case DUE_INDEX -> manager.dueDates().range(q.dueFrom, q.dueTo, q.dueToExclusive);
+            case FACET_INDEX -> manager.facets().tasks(plan.facetBits);
+            case SCAN -> manager.allTasks();
+        };
+        return plan;
+    }
+
+    List<Task> execute(TaskQuery q) {
+        Plan plan = plan(q);
+        boolean stopEarly = q.sort == TaskQuery.Sort.NONE;
+        List<Task> result = new ArrayList<>();
+        if (q.limit == 0) return result;
+        for (Task t : plan.candidates) {
+            if (!q.matches(t)) continue;
+            if (plan.textMatches != null && plan.source != Source.TEXT_INDEX && !plan.textMatches.contains(t)) continue;
+            result.add(t);
+            if (stopEarly && result.size() >= q.limit) return result;
+        }
+        Comparator<Task> order = comparator(q.sort);
+        if (order != null) result.sort(q.descending ? order.reversed() : order);
+        return result.size() > q.limit ? new ArrayList<>(result.subList(0, q.limit)) : result;
+    }
+
+    String explain(TaskQuery q) {
+        Plan plan = plan(q);
+        StringBuilder sb = new StringBuilder();
+        sb.append(q).append(System.lineSeparator());
+        sb.append("  source: ").append(plan.source).append(" (~").append(plan.estimate).append(" candidates)")
+          .append(System.lineSeparator());
+        sb.append("  considered: ").append(plan.considered).append(System.lineSeparator());
+        sb.append("  then: filter remaining predicates");
+        if (q.sort != TaskQuery.Sort.NONE) sb.append(", sort by ").append(q.sort).append(q.descending ? " desc" : "");
+        if (q.limit != Integer.MAX_VALUE) sb.append(q.sort == TaskQuery.Sort.NONE ? ", stop at " : ", keep first ").append(q.limit);
+        return sb.toString();
+    }
+
+    private static Iterable<Task> tasksOf(Category cat) {
+        return () -> cat.getSubjects().stream().flatMap(s -> s.getTasks().stream()).iterator();
+    }
+
+    private static Comparator<Task> comparator(TaskQuery.Sort sort) {
+        return switch (sort) {
+            case NONE -> null;
+            case NAME -> Comparator.comparing(Task::getName);
+            case DUE_DATE -> Comparator.comparing(Task::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()));
+            case LAST_ACCESSED -> Comparator.comparing(Task::getLastAccessed);
+            case DIFFICULTY -> Comparator.comparing(Task::getDifficulty);
+        };
+    }
+}
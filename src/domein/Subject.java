@@ -2,45 +2,106 @@ package domein;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 
 public class Subject {
+    private long id;
     private String name;
     private final List<Task> tasks;
+    private final List<Task> tasksView;
+    private final Map<String, Task> tasksByName = new HashMap<>();
+    private Category category;
+    private boolean dirty = true;
+    // snapshot node shared until something in this subject changes
+    TreeSnapshot.SubjectNode node;
 
     public Subject(String name) {
         this.tasks = new ArrayList<>();
+        this.tasksView = Collections.unmodifiableList(tasks);
         setName(name);
     }
 
     public void addTask(Task task) {
+        addTask(tasks.size(), task);
+    }
+
+    /** Inserts {@code task} at {@code index}; used to put a removed task back where it was. */
+    void addTask(int index, Task task) {
         if (task == null) throw new IllegalArgumentException("Task cannot be null.");
-        try {
-            task.setOriginalSubjectName(this.name);
-        } catch (Exception ignored) {}
-        tasks.add(task);
+        tasks.add(index, task);
+        task.attach(this);
+        tasksByName.putIfAbsent(task.getName(), task);
+        dirty = true;
+        touched();
+        if (category != null) category.taskCountChanged(1);
+        CategoryManager manager = manager();
+        if (manager != null) manager.taskAttached(task);
     }
 
     public boolean removeTask(Task task) {
         if (task == null) return false;
-        return tasks.remove(task);
+        int index = -1;
+        for (int i = 0; i < tasks.size() && index < 0; i++) {
+            if (tasks.get(i) == task) index = i;
+        }
+        if (index < 0) return false;
+        Task removed = tasks.remove(index);
+        if (removed.getSubject() == this) removed.attach(null);
+        unindex(removed, removed.getName());
+        dirty = true;
+        touched();
+        if (category != null) category.taskCountChanged(-1);
+        CategoryManager manager = manager();
+        if (manager != null) manager.taskDetached(removed);
+        return true;
     }
 
     public boolean removeTaskByName(String taskName) {
         if (taskName == null || taskName.isBlank()) return false;
-        for (int i = 0; i < tasks.size(); i++) {
-            Task t = tasks.get(i);
-            if (taskName.equals(t.getName())) {
-                tasks.remove(i);
-                return true;
+        Task t = tasksByName.get(taskName);
+        return t != null && removeTask(t);
+    }
+
+    /** Looks a task up by name; with duplicate names the first one added wins. */
+    public Task getTask(String taskName) {
+        return tasksByName.get(taskName);
+    }
+
+    void taskChanged(Task task) {
+        touched();
+        CategoryManager manager = manager();
+        if (manager != null) manager.taskChanged(task);
+    }
+
+    private void touched() {
+        node = null;
+        if (category != null) category.touched();
+    }
+
+    private CategoryManager manager() {
+        return category != null ? category.getManager() : null;
+    }
+
+    void taskRenamed(Task task, String oldName) {
+        unindex(task, oldName);
+        tasksByName.putIfAbsent(task.getName(), task);
+    }
+
+    private void unindex(Task task, String name) {
+        if (tasksByName.get(name) != task) return;
+        tasksByName.remove(name);
+        for (Task t : tasks) {
+            if (t.getName().equals(name)) {
+                tasksByName.put(name, t);
+                break;
             }
         }
-        return false;
     }
 
     public List<Task> getTasks() {
-        return Collections.unmodifiableList(tasks);
+        return tasksView;
     }
 
     public void showTasks() {
@@ -57,6 +118,22 @@ public class Subject {
         }
     }
 
+    /** Stable id, unique within the manager and kept across renames and restarts; 0 until first attached. */
+    public long getId() {
+        return id;
+    }
+
+    /** Sets the id this subject was stored with; loaders call this before the subject is attached. */
+    public void restoreId(long id) {
+        if (id < 0) throw new IllegalArgumentException("Id cannot be negative.");
+        this.id = id;
+    }
+
+    void assignId(long id) {
+        this.id = id;
+        dirty = true;
+    }
+
     public String getName() {
         return name;
     }
@@ -65,25 +142,34 @@ public class Subject {
         if (name == null || name.isBlank()) {
             throw new IllegalArgumentException("Subject name cannot be null or blank.");
         }
+        String oldName = this.name;
         this.name = name;
-        for (Task t : tasks) {
-            try {
-                t.setOriginalSubjectName(name);
-            } catch (Exception ignored) {}
-        }
+        dirty = true;
+        touched();
+        if (category != null && !name.equals(oldName)) category.subjectRenamed(this, oldName);
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof Subject)) return false;
-        Subject subject = (Subject) o;
-        return Objects.equals(name, subject.name);
+    /** The category this subject is filed under, or null while it is detached. */
+    public Category getCategory() {
+        return category;
     }
 
-    @Override
-    public int hashCode() {
-        return Objects.hash(name);
+    void attach(Category category) {
+        this.category = category;
+    }
+
+    /** True when the subject or any of its tasks changed since it was last loaded or saved. */
+    public boolean isDirty() {
+        if (dirty) return true;
+        for (Task t : tasks) {
+            if (t.isDirty()) return true;
+        }
+        return false;
+    }
+
+    public void clearDirty() {
+        dirty = false;
+        for (Task t : tasks) t.clearDirty();
     }
 
     @Override
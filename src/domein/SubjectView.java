@@ -0,0 +1,26 @@
+package domein;
+
+/** Read-only copy of a subject's name, parent and size, taken when the view was created. */
+public final class SubjectView {
+    private final long id;
+    private final String categoryName;
+    private final String name;
+    private final int taskCount;
+
+    SubjectView(Subject subject) {
+        this.id = subject.getId();
+        this.categoryName = subject.getCategory() != null ? subject.getCategory().getName() : null;
+        this.name = subject.getName();
+        this.taskCount = subject.getTasks().size();
+    }
+
+    public long getId() { return id; }
+    public String getCategoryName() { return categoryName; }
+    public String getName() { return name; }
+    public int getTaskCount() { return taskCount; }
+
+    @Override
+    public String toString() {
+        return name + " (Tasks: " + taskCount + ")";
+    }
+}
@@ -1,30 +1,52 @@
 package domein;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Objects;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 public class Task {
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+    private static final String[] NO_LINKS = new String[0];
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final byte COMPLETED = 1;
+    private static final byte DIRTY = 2;
+
+    // timestamps are UTC epoch seconds of the LocalDateTime, links are name/url pairs in insertion order
+    private long id;
+    private long dueDate = NO_DATE;
+    private long lastAccessed;
     private String name;
     private String description;
-    private Difficulty difficulty;
-    private boolean completed;
-    private LocalDateTime dueDate;
-    private LocalDateTime lastAccessed;
-    private Map<String, String> links = new HashMap<>();
+    private String[] links = NO_LINKS;
+    private byte difficulty;
+    private byte flags = DIRTY;
+    private volatile Details details;
+    private Subject subject;
+    int slot = -1;
+    int sampleIndex = -1;
+    // immutable copy shared by tree snapshots until this task changes
+    TaskView view;
 
-    private String originalCategoryName;
-    private String originalSubjectName;
+    /** Undecoded description and links kept by a lazy load; decoded once on first access. */
+    public interface Details {
+        String description();
+        void links(Map<String, String> into);
+    }
 
     public Task(String name, String description, Difficulty difficulty, LocalDateTime dueDate) {
         setName(name);
         setDescription(description);
         setDifficulty(difficulty);
         setDueDate(dueDate);
-        this.completed = false;
-        this.lastAccessed = LocalDateTime.now();
+        this.lastAccessed = toEpoch(LocalDateTime.now());
     }
 
     public void addLink(String linkName, String url) {
@@ -34,59 +56,195 @@ public class Task {
         if (url == null || url.isBlank()) {
             throw new IllegalArgumentException("URL cannot be null or blank.");
         }
-        links.put(linkName, url);
+        hydrate();
+        putLink(linkName, url);
+        flags |= DIRTY;
+        changed();
     }
 
-    public Map<String, String> getLinks() { return links; }
-    public String getLink(String linkName) { return links.get(linkName); }
-    public void removeLink(String linkName) { links.remove(linkName); }
+    /** Read-only view of the links in insertion order; change them through addLink and removeLink. */
+    public Map<String, String> getLinks() { hydrate(); return new LinkMap(); }
+    public String getLink(String linkName) { hydrate(); int i = indexOfLink(linkName); return i < 0 ? null : links[i + 1]; }
+    public void removeLink(String linkName) { hydrate(); if (removeLinkAt(indexOfLink(linkName)) != null) { flags |= DIRTY; changed(); } }
 
-    public void open() { lastAccessed = LocalDateTime.now(); }
-    public void markCompleted() { completed = true; }
+    public void open() { lastAccessed = toEpoch(LocalDateTime.now()); flags |= DIRTY; changed(); }
+    public void markCompleted() { flags |= COMPLETED | DIRTY; changed(); }
+
+    /** Stable id, unique within the manager and kept across renames and restarts; 0 until first attached. */
+    public long getId() { return id; }
+    /** Sets the id this task was stored with; loaders call this before the task is attached. */
+    public void restoreId(long id) {
+        if (id < 0) throw new IllegalArgumentException("Id cannot be negative.");
+        this.id = id;
+    }
+    void assignId(long id) { this.id = id; flags |= DIRTY; }
 
     public String getName() { return name; }
     public void setName(String name) {
         if (name == null || name.isBlank()) throw new IllegalArgumentException("Task name cannot be null or blank.");
+        String oldName = this.name;
         this.name = name;
+        flags |= DIRTY;
+        if (subject != null && !name.equals(oldName)) subject.taskRenamed(this, oldName);
+        changed();
     }
 
-    public String getDescription() { return description; }
+    /** The subject this task is filed under, or null while it is detached. */
+    public Subject getSubject() { return subject; }
+    void attach(Subject subject) { this.subject = subject; }
+    private void changed() { view = null; if (subject != null) subject.taskChanged(this); }
+    /** The undecoded details of a lazy load, or null once hydrated. */
+    Details pendingDetails() { return details; }
+
+    public String getDescription() { hydrate(); return description; }
     public void setDescription(String description) {
         if (description == null) throw new IllegalArgumentException("Description cannot be null.");
+        hydrate();
         this.description = description;
+        flags |= DIRTY;
+        changed();
     }
 
-    public Difficulty getDifficulty() { return difficulty; }
+    public Difficulty getDifficulty() { return DIFFICULTIES[difficulty]; }
     public void setDifficulty(Difficulty difficulty) {
         if (difficulty == null) throw new IllegalArgumentException("Difficulty cannot be null.");
-        this.difficulty = difficulty;
+        this.difficulty = (byte) difficulty.ordinal();
+        flags |= DIRTY;
+        changed();
     }
 
-    public LocalDateTime getDueDate() { return dueDate; }
+    public LocalDateTime getDueDate() { return dueDate == NO_DATE ? null : fromEpoch(dueDate); }
     public void setDueDate(LocalDateTime dueDate) {
         if (dueDate != null && dueDate.isBefore(LocalDateTime.now())) throw new IllegalArgumentException("Due date cannot be in the past.");
-        this.dueDate = dueDate;
+        restoreDueDate(dueDate);
+    }
+
+    public void restoreDueDate(LocalDateTime dueDate) { this.dueDate = dueDate == null ? NO_DATE : toEpoch(dueDate); flags |= DIRTY; changed(); }
+
+    /** Defers the description and links to {@code details}, replacing whatever this task holds now. */
+    public void restoreDetails(Details details) {
+        synchronized (this) {
+            links = NO_LINKS;
+            this.details = details;
+        }
+        flags |= DIRTY;
+        changed();
     }
 
-    public boolean isCompleted() { return completed; }
-    public void setCompleted(boolean completed) { this.completed = completed; }
+    private void hydrate() {
+        Details pending = details;
+        if (pending == null) return;
+        synchronized (this) {
+            if (details == null) return;
+            description = pending.description();
+            Map<String, String> decoded = new LinkedHashMap<>();
+            pending.links(decoded);
+            decoded.forEach(this::putLink);
+            details = null;
+        }
+    }
+
+    public boolean isCompleted() { return (flags & COMPLETED) != 0; }
+    public void setCompleted(boolean completed) { flags = (byte) ((completed ? flags | COMPLETED : flags & ~COMPLETED) | DIRTY); changed(); }
 
-    public LocalDateTime getLastAccessed() { return lastAccessed; }
+    /** When the task was last opened, kept to the second. */
+    public LocalDateTime getLastAccessed() { return fromEpoch(lastAccessed); }
     public void setLastAccessed(LocalDateTime lastAccessed) {
         if (lastAccessed == null) throw new IllegalArgumentException("Last accessed cannot be null.");
-        this.lastAccessed = lastAccessed;
+        this.lastAccessed = toEpoch(lastAccessed);
+        flags |= DIRTY;
+        changed();
+    }
+
+    /** Name of the category this task is filed under, resolved through its subject; null while detached. */
+    public String getOriginalCategoryName() {
+        Category category = subject != null ? subject.getCategory() : null;
+        return category != null ? category.getName() : null;
+    }
+
+    /** Name of the subject this task is filed under; null while detached. */
+    public String getOriginalSubjectName() { return subject != null ? subject.getName() : null; }
+
+    /** True when the task changed since it was last loaded or saved. */
+    public boolean isDirty() { return (flags & DIRTY) != 0; }
+    public void clearDirty() { flags &= ~DIRTY; }
+
+    private static long toEpoch(LocalDateTime dateTime) { return dateTime.toEpochSecond(ZoneOffset.UTC); }
+    private static LocalDateTime fromEpoch(long seconds) { return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC); }
+
+    // --- Links ---
+    private int indexOfLink(Object linkName) {
+        for (int i = 0; i < links.length; i += 2) {
+            if (links[i].equals(linkName)) return i;
+        }
+        return -1;
+    }
+
+    private String putLink(String linkName, String url) {
+        int i = indexOfLink(linkName);
+        if (i >= 0) {
+            String previous = links[i + 1];
+            links[i + 1] = url;
+            return previous;
+        }
+        String[] grown = Arrays.copyOf(links, links.length + 2);
+        grown[links.length] = linkName;
+        grown[links.length + 1] = url;
+        links = grown;
+        return null;
     }
 
-    public String getOriginalCategoryName() { return originalCategoryName; }
-    public void setOriginalCategoryName(String originalCategoryName) { this.originalCategoryName = originalCategoryName; }
+    private String removeLinkAt(int i) {
+        if (i < 0) return null;
+        String previous = links[i + 1];
+        if (links.length == 2) {
+            links = NO_LINKS;
+        } else {
+            String[] shrunk = new String[links.length - 2];
+            System.arraycopy(links, 0, shrunk, 0, i);
+            System.arraycopy(links, i + 2, shrunk, i, links.length - i - 2);
+            links = shrunk;
+        }
+        return previous;
+    }
+
+    /** Read-only map over the link pairs; AbstractMap rejects every write. */
+    private final class LinkMap extends AbstractMap<String, String> {
+        @Override public int size() { return links.length / 2; }
+        @Override public boolean containsKey(Object key) { return indexOfLink(key) >= 0; }
+        @Override public String get(Object key) { int i = indexOfLink(key); return i < 0 ? null : links[i + 1]; }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override public int size() { return links.length / 2; }
 
-    public String getOriginalSubjectName() { return originalSubjectName; }
-    public void setOriginalSubjectName(String originalSubjectName) { this.originalSubjectName = originalSubjectName; }
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    String[] pairs = links;
+                    return new Iterator<>() {
+                        int next;
+
+                        @Override public boolean hasNext() { return next < pairs.length; }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (next >= pairs.length) throw new NoSuchElementException();
+                            next += 2;
+                            return new SimpleImmutableEntry<>(pairs[next - 2], pairs[next - 1]);
+                        }
+                    };
+                }
+            };
+        }
+    }
 
     @Override
     public String toString() {
+        LocalDateTime dueDate = getDueDate();
         String due = (dueDate == null) ? "none" : dueDate.format(DateTimeFormatter.ofPattern("dd-MM-yy HH:mm"));
 
+        Map<String, String> links = getLinks();
         StringBuilder linksStr = new StringBuilder();
         if (!links.isEmpty()) {
             linksStr.append("Links: ");
@@ -96,24 +254,13 @@ public class Task {
         return String.format(
             "Task[name='%s', description='%s', difficulty=%s, due=%s, completed=%b%s, category='%s', subject='%s']",
             name,
-            description,
-            difficulty,
+            getDescription(),
+            getDifficulty(),
             due,
-            completed,
+            isCompleted(),
             linksStr.length() > 0 ? " | " + linksStr.toString() : "",
-            originalCategoryName,
-            originalSubjectName
+            getOriginalCategoryName(),
+            getOriginalSubjectName()
         );
     }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof Task)) return false;
-        Task task = (Task) o;
-        return Objects.equals(name, task.name) && Objects.equals(dueDate, task.dueDate);
-    }
-
-    @Override
-    public int hashCode() { return Objects.hash(name, dueDate); }
 }
@@ -0,0 +1,113 @@
+package domein;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bitsets over a dense slot numbering of the attached tasks: one per difficulty plus one for
+ * completion. Filters on difficulty and state are answered by intersecting bitsets. Freed slots are
+ * reused, so results come back in slot order rather than hierarchy order.
+ */
+class TaskFacetIndex {
+
+    private Task[] slots = new Task[64];
+    private int[] free = new int[16];
+    private int freeCount;
+    private int high;
+
+    private final BitSet live = new BitSet();
+    private final BitSet completed = new BitSet();
+    private final Map<Difficulty, BitSet> byDifficulty = new EnumMap<>(Difficulty.class);
+    private final int[] difficultyCounts = new int[Difficulty.values().length];
+    private int completedCount;
+
+    TaskFacetIndex() {
+        for (Difficulty d : Difficulty.values()) byDifficulty.put(d, new BitSet());
+    }
+
+    void add(Task task) {
+        if (task.slot >= 0 && task.slot < high && slots[task.slot] == task) {
+            update(task);
+            return;
+        }
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (high == slots.length) slots = Arrays.copyOf(slots, high * 2);
+            slot = high++;
+        }
+        slots[slot] = task;
+        task.slot = slot;
+        live.set(slot);
+        update(task);
+    }
+
+    void remove(Task task) {
+        int slot = task.slot;
+        if (slot < 0 || slot >= high || slots[slot] != task) return;
+        slots[slot] = null;
+        task.slot = -1;
+        live.clear(slot);
+        if (completed.get(slot)) completedCount--;
+        completed.clear(slot);
+        for (Map.Entry<Difficulty, BitSet> e : byDifficulty.entrySet()) {
+            if (e.getValue().get(slot)) difficultyCounts[e.getKey().ordinal()]--;
+            e.getValue().clear(slot);
+        }
+        if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = slot;
+    }
+
+    void update(Task task) {
+        int slot = task.slot;
+        if (slot < 0 || slot >= high || slots[slot] != task) return;
+        for (Map.Entry<Difficulty, BitSet> e : byDifficulty.entrySet()) {
+            boolean member = e.getKey() == task.getDifficulty();
+            if (e.getValue().get(slot) == member) continue;
+            e.getValue().set(slot, member);
+            difficultyCounts[e.getKey().ordinal()] += member ? 1 : -1;
+        }
+        if (completed.get(slot) != task.isCompleted()) {
+            completed.set(slot, task.isCompleted());
+            completedCount += task.isCompleted() ? 1 : -1;
+        }
+    }
+
+    int completedCount() {
+        return completedCount;
+    }
+
+    int[] difficultyCounts() {
+        return difficultyCounts;
+    }
+
+    /** The slots matching both filters; a null filter matches everything. */
+    BitSet select(Difficulty difficulty, Boolean isCompleted) {
+        BitSet result = (BitSet) (difficulty == null ? live : byDifficulty.get(difficulty)).clone();
+        if (isCompleted != null) {
+            if (isCompleted) result.and(completed);
+            else result.andNot(completed);
+        }
+        return result;
+    }
+
+    boolean matches(Task task, Difficulty difficulty, Boolean isCompleted) {
+        return (difficulty == null || task.getDifficulty() == difficulty)
+                && (isCompleted == null || task.isCompleted() == isCompleted);
+    }
+
+    List<Task> tasks(BitSet bits) {
+        List<Task> result = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) result.add(slots[i]);
+        return result;
+    }
+
+    int size() {
+        return high - freeCount;
+    }
+}
@@ -0,0 +1,135 @@
+package domein;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filters, sort order and limit for {@link CategoryManager#query(TaskQuery)}. Every filter is optional
+ * and they are combined with AND. The manager's planner decides which index produces the candidates;
+ * {@link CategoryManager#explain(TaskQuery)} shows that choice.
+ */
+public class TaskQuery {
+
+    public enum Sort { NONE, NAME, DUE_DATE, LAST_ACCESSED, DIFFICULTY }
+
+    String categoryName;
+    String subjectName;
+    Difficulty difficulty;
+    Boolean completed;
+    LocalDateTime dueFrom;
+    LocalDateTime dueTo;
+    boolean dueToExclusive;
+    String text;
+    LocalDateTime accessedFrom;
+    LocalDateTime accessedTo;
+    Sort sort = Sort.NONE;
+    boolean descending;
+    int limit = Integer.MAX_VALUE;
+
+    public TaskQuery inCategory(String categoryName) {
+        this.categoryName = categoryName;
+        return this;
+    }
+
+    public TaskQuery inSubject(String categoryName, String subjectName) {
+        this.categoryName = categoryName;
+        this.subjectName = subjectName;
+        return this;
+    }
+
+    public TaskQuery difficulty(Difficulty difficulty) {
+        this.difficulty = difficulty;
+        return this;
+    }
+
+    public TaskQuery completed(Boolean completed) {
+        this.completed = completed;
+        return this;
+    }
+
+    public TaskQuery pending() {
+        return completed(false);
+    }
+
+    /** Due date within {@code [from, to]}; either bound may be null. Undated tasks never match. */
+    public TaskQuery dueBetween(LocalDateTime from, LocalDateTime to) {
+        this.dueFrom = from;
+        this.dueTo = to;
+        this.dueToExclusive = false;
+        return this;
+    }
+
+    /** Due date strictly before {@code instant}. */
+    public TaskQuery dueBefore(LocalDateTime instant) {
+        this.dueFrom = null;
+        this.dueTo = instant;
+        this.dueToExclusive = true;
+        return this;
+    }
+
+    /** Full-text match as in {@link CategoryManager#searchTasks(String)}. */
+    public TaskQuery text(String text) {
+        this.text = text;
+        return this;
+    }
+
+    /** Last opened within {@code [from, to]}; either bound may be null. */
+    public TaskQuery accessedBetween(LocalDateTime from, LocalDateTime to) {
+        this.accessedFrom = from;
+        this.accessedTo = to;
+        return this;
+    }
+
+    public TaskQuery sortBy(Sort sort, boolean descending) {
+        if (sort == null) throw new IllegalArgumentException("Sort cannot be null.");
+        this.sort = sort;
+        this.descending = descending;
+        return this;
+    }
+
+    public TaskQuery limit(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Limit cannot be negative.");
+        this.limit = limit;
+        return this;
+    }
+
+    boolean hasDueRange() {
+        return dueFrom != null || dueTo != null;
+    }
+
+    boolean matches(Task t) {
+        if (difficulty != null && t.getDifficulty() != difficulty) return false;
+        if (completed != null && t.isCompleted() != completed) return false;
+        if (hasDueRange()) {
+            LocalDateTime due = t.getDueDate();
+            if (due == null) return false;
+            if (dueFrom != null && due.isBefore(dueFrom)) return false;
+            if (dueTo != null && (dueToExclusive ? !due.isBefore(dueTo) : due.isAfter(dueTo))) return false;
+        }
+        if (accessedFrom != null && t.getLastAccessed().isBefore(accessedFrom)) return false;
+        if (accessedTo != null && t.getLastAccessed().isAfter(accessedTo)) return false;
+        if (subjectName != null || categoryName != null) {
+            Subject s = t.getSubject();
+            if (s == null) return false;
+            if (subjectName != null && !subjectName.equals(s.getName())) return false;
+            if (categoryName != null && (s.getCategory() == null || !categoryName.equals(s.getCategory().getName()))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        List<String> parts = new ArrayList<>();
+        if (categoryName != null) parts.add("category=" + categoryName);
+        if (subjectName != null) parts.add("subject=" + subjectName);
+        if (difficulty != null) parts.add("difficulty=" + difficulty);
+        if (completed != null) parts.add(completed ? "completed" : "pending");
+        if (hasDueRange()) parts.add("due " + (dueFrom == null ? "..." : dueFrom) + (dueToExclusive ? " to before " : " to ") + (dueTo == null ? "..." : dueTo));
+        if (text != null) parts.add("text='" + text + "'");
+        if (accessedFrom != null || accessedTo != null) parts.add("accessed " + accessedFrom + " to " + accessedTo);
+        if (sort != Sort.NONE) parts.add("sort=" + sort + (descending ? " desc" : ""));
+        if (limit != Integer.MAX_VALUE) parts.add("limit=" + limit);
+        return "TaskQuery[" + String.join(", ", parts) + "]";
+    }
+}
@@ -0,0 +1,131 @@
+package domein;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Dense array of the attached tasks for O(1) uniform sampling; removal swaps the last task into the
+ * hole. A Fenwick tree over per-task weights gives O(log n) weighted sampling. Weights are evaluated
+ * when a task is attached or changes, so overdue-ness and idle time reflect that moment until
+ * {@link #reweighAll()} runs.
+ */
+class TaskSampler {
+
+    private Task[] tasks = new Task[64];
+    private double[] weights = new double[64];
+    private double[] tree = new double[65];
+    private int size;
+
+    void add(Task task) {
+        if (task.sampleIndex >= 0 && task.sampleIndex < size && tasks[task.sampleIndex] == task) {
+            update(task);
+            return;
+        }
+        if (size == tasks.length) grow();
+        tasks[size] = task;
+        task.sampleIndex = size;
+        setWeight(size++, weight(task, LocalDateTime.now()));
+    }
+
+    void remove(Task task) {
+        int i = task.sampleIndex;
+        if (i < 0 || i >= size || tasks[i] != task) return;
+        int last = --size;
+        Task moved = tasks[last];
+        double movedWeight = weights[last];
+        setWeight(last, 0);
+        tasks[last] = null;
+        task.sampleIndex = -1;
+        if (i != last) {
+            tasks[i] = moved;
+            moved.sampleIndex = i;
+            setWeight(i, movedWeight);
+        } else {
+            tasks[i] = null;
+        }
+    }
+
+    void update(Task task) {
+        int i = task.sampleIndex;
+        if (i < 0 || i >= size || tasks[i] != task) return;
+        setWeight(i, weight(task, LocalDateTime.now()));
+    }
+
+    /** Re-evaluates every weight against the current time and rebuilds the tree in O(n). */
+    void reweighAll() {
+        LocalDateTime now = LocalDateTime.now();
+        Arrays.fill(tree, 0);
+        for (int i = 0; i < size; i++) {
+            weights[i] = weight(tasks[i], now);
+            tree[i + 1] += weights[i];
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+            if (parent <= tasks.length) tree[parent] += tree[i + 1];
+        }
+    }
+
+    Task uniform() {
+        return size == 0 ? null : tasks[ThreadLocalRandom.current().nextInt(size)];
+    }
+
+    /** A task drawn with probability proportional to its weight, or null when all weights are zero. */
+    Task weighted() {
+        double total = prefix(size);
+        if (size == 0 || total <= 0) return null;
+        double target = ThreadLocalRandom.current().nextDouble(total);
+        int pos = 0;
+        for (int step = Integer.highestOneBit(tasks.length); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= tasks.length && tree[next] <= target) {
+                pos = next;
+                target -= tree[next];
+            }
+        }
+        // rounding can land on a zero-weight slot at the end; step back to a real one
+        for (int i = Math.min(pos, size - 1); i >= 0; i--) {
+            if (weights[i] > 0) return tasks[i];
+        }
+        return null;
+    }
+
+    /**
+     * Pending tasks weigh 1-3 by difficulty, three times that when overdue, and gain another unit
+     * per idle week since last opened, capped at 30 days. Completed tasks weigh nothing.
+     */
+    static double weight(Task task, LocalDateTime now) {
+        if (task.isCompleted()) return 0;
+        double w = task.getDifficulty().ordinal() + 1;
+        if (task.getDueDate() != null && task.getDueDate().isBefore(now)) w *= 3;
+        long idleDays = Math.max(0, Math.min(30, Duration.between(task.getLastAccessed(), now).toDays()));
+        return w * (1 + idleDays / 7.0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void setWeight(int i, double w) {
+        double delta = w - weights[i];
+        weights[i] = w;
+        if (delta == 0) return;
+        for (int j = i + 1; j <= tasks.length; j += j & -j) tree[j] += delta;
+    }
+
+    private double prefix(int count) {
+        double sum = 0;
+        for (int j = count; j > 0; j -= j & -j) sum += tree[j];
+        return sum;
+    }
+
+    private void grow() {
+        tasks = Arrays.copyOf(tasks, tasks.length * 2);
+        weights = Arrays.copyOf(weights, tasks.length);
+        tree = new double[tasks.length + 1];
+        for (int i = 0; i < size; i++) {
+            tree[i + 1] += weights[i];
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+            if (parent <= tasks.length) tree[parent] += tree[i + 1];
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package domein;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only copy of a task and the names of its parents, taken when the view was created. A task
+ * whose details were never decoded shares its immutable raw details, decoded on first access.
+ */
+public final class TaskView {
+    private final long id;
+    private final String categoryName;
+    private final String subjectName;
+    private final String name;
+    private String description;
+    private final Difficulty difficulty;
+    private final LocalDateTime dueDate;
+    private final LocalDateTime lastAccessed;
+    private final boolean completed;
+    private Map<String, String> links;
+    private Task.Details details;
+
+    TaskView(Task task) {
+        this.id = task.getId();
+        this.subjectName = task.getOriginalSubjectName();
+        this.categoryName = task.getOriginalCategoryName();
+        this.name = task.getName();
+        this.difficulty = task.getDifficulty();
+        this.dueDate = task.getDueDate();
+        this.lastAccessed = task.getLastAccessed();
+        this.completed = task.isCompleted();
+        this.details = task.pendingDetails();
+        if (details == null) {
+            this.description = task.getDescription();
+            this.links = copy(task.getLinks());
+        }
+    }
+
+    private static Map<String, String> copy(Map<String, String> links) {
+        return links.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(links));
+    }
+
+    private synchronized void decode() {
+        if (details == null) return;
+        description = details.description();
+        Map<String, String> decoded = new LinkedHashMap<>();
+        details.links(decoded);
+        links = copy(decoded);
+        details = null;
+    }
+
+    public long getId() { return id; }
+    public String getCategoryName() { return categoryName; }
+    public String getSubjectName() { return subjectName; }
+    public String getName() { return name; }
+    public synchronized String getDescription() { decode(); return description; }
+    public Difficulty getDifficulty() { return difficulty; }
+    public LocalDateTime getDueDate() { return dueDate; }
+    public LocalDateTime getLastAccessed() { return lastAccessed; }
+    public boolean isCompleted() { return completed; }
+    public synchronized Map<String, String> getLinks() { decode(); return links; }
+
+    @Override
+    public String toString() {
+        return name + " [" + difficulty + (completed ? ", completed" : "") + (dueDate != null ? ", due " + dueDate : "") + "]";
+    }
+}
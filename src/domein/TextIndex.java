@@ -0,0 +1,140 @@
+package domein;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index from lowercased terms to the tasks containing them, over task names, descriptions
+ * and link names. Postings carry a weight (name 3, link name 2, description 1 per occurrence) that is
+ * summed into the ranking score. Terms live in a TreeMap so "prefix*" queries are a range scan.
+ */
+class TextIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int LINK_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final NavigableMap<String, Map<Task, Integer>> postings = new TreeMap<>();
+    private final Map<Task, String[]> termsOf = new IdentityHashMap<>();
+
+    void add(Task task) {
+        remove(task);
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(task.getName(), NAME_WEIGHT, weights);
+        tokenize(task.getDescription(), DESCRIPTION_WEIGHT, weights);
+        for (String link : task.getLinks().keySet()) tokenize(link, LINK_WEIGHT, weights);
+        for (Map.Entry<String, Integer> e : weights.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> new IdentityHashMap<>()).put(task, e.getValue());
+        }
+        termsOf.put(task, weights.keySet().toArray(new String[0]));
+    }
+
+    void remove(Task task) {
+        String[] terms = termsOf.remove(task);
+        if (terms == null) return;
+        for (String term : terms) {
+            Map<Task, Integer> tasks = postings.get(term);
+            if (tasks == null) continue;
+            tasks.remove(task);
+            if (tasks.isEmpty()) postings.remove(term);
+        }
+    }
+
+    /**
+     * Runs a query and returns the matches best first. Words are ANDed, the keyword OR separates
+     * alternatives, and a trailing '*' makes a word a prefix, e.g. {@code "lab rep* OR essay"}.
+     */
+    List<Task> search(String query) {
+        Map<Task, Integer> scores = new IdentityHashMap<>();
+        List<String> group = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            if (word.equals("OR")) {
+                merge(scores, evaluate(group));
+                group.clear();
+            } else if (!word.isEmpty()) {
+                group.add(word);
+            }
+        }
+        merge(scores, evaluate(group));
+
+        List<Map.Entry<Task, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> a.getValue().equals(b.getValue())
+                ? a.getKey().getName().compareTo(b.getKey().getName())
+                : b.getValue() - a.getValue());
+        List<Task> result = new ArrayList<>(ranked.size());
+        for (Map.Entry<Task, Integer> e : ranked) result.add(e.getKey());
+        return result;
+    }
+
+    private Map<Task, Integer> evaluate(List<String> words) {
+        List<Map<Task, Integer>> terms = new ArrayList<>();
+        for (String word : words) {
+            boolean prefix = word.endsWith("*");
+            List<String> tokens = new ArrayList<>();
+            tokenize(prefix ? word.substring(0, word.length() - 1) : word, tokens);
+            for (int i = 0; i < tokens.size(); i++) {
+                terms.add(lookup(tokens.get(i), prefix && i == tokens.size() - 1));
+            }
+        }
+        if (terms.isEmpty()) return new IdentityHashMap<>();
+
+        // AND: walk the rarest term and probe the others
+        terms.sort((a, b) -> a.size() - b.size());
+        Map<Task, Integer> result = new IdentityHashMap<>();
+        for (Map.Entry<Task, Integer> e : terms.get(0).entrySet()) {
+            int score = e.getValue();
+            for (int i = 1; i < terms.size() && score > 0; i++) {
+                Integer w = terms.get(i).get(e.getKey());
+                score = w == null ? 0 : score + w;
+            }
+            if (score > 0) result.put(e.getKey(), score);
+        }
+        return result;
+    }
+
+    private Map<Task, Integer> lookup(String token, boolean prefix) {
+        if (!prefix) {
+            Map<Task, Integer> tasks = postings.get(token);
+            return tasks != null ? tasks : new IdentityHashMap<>();
+        }
+        Map<Task, Integer> merged = new IdentityHashMap<>();
+        for (Map<Task, Integer> tasks : postings.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+            merge(merged, tasks);
+        }
+        return merged;
+    }
+
+    private static void merge(Map<Task, Integer> into, Map<Task, Integer> from) {
+        for (Map.Entry<Task, Integer> e : from.entrySet()) into.merge(e.getKey(), e.getValue(), Integer::sum);
+    }
+
+    private static void tokenize(String text, int weight, Map<String, Integer> into) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens);
+        for (String token : tokens) into.merge(token, weight, Integer::sum);
+    }
+
+    /** Splits on anything that is not a letter or digit and lowercases the pieces. */
+    static void tokenize(String text, List<String> into) {
+        if (text == null) return;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) start = i;
+            if (!word && start >= 0) {
+                into.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    int termCount() {
+        return postings.size();
+    }
+}
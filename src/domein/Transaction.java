@@ -0,0 +1,349 @@
+package domein;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import repo.Mutation;
+
+/**
+ * The operations available inside {@link CategoryManager#batch}. Each one validates, applies its
+ * change straight away and keeps a journal record plus an undo step. When the batch returns, the
+ * records are journaled in one append; when it throws, the undo steps run newest first and nothing
+ * is journaled. Undo steps may rely on positions because every later step has already been undone.
+ */
+public final class Transaction {
+    private final CategoryManager manager;
+    private final List<Mutation> mutations = new ArrayList<>();
+    private final Deque<Runnable> undo = new ArrayDeque<>();
+    private final List<ChangeEvent> events = new ArrayList<>();
+    // events, and the task views they carry, are only built when someone listens
+    private final boolean observed;
+    private boolean closed;
+
+    Transaction(CategoryManager manager, boolean observed) {
+        this.manager = manager;
+        this.observed = observed;
+    }
+
+    // --- Category operations ---
+    public void addCategory(Category category) {
+        checkOpen();
+        if (category == null) throw new IllegalArgumentException("Category cannot be null.");
+        validateName(category.getName(), "Category");
+        if (manager.category(category.getName()) != null)
+            throw new IllegalArgumentException("Category already exists: " + category.getName());
+        Set<String> subjectNames = new HashSet<>();
+        for (Subject s : category.getSubjects()) {
+            validateName(s.getName(), "Subject");
+            if (!subjectNames.add(s.getName())) throw new IllegalArgumentException("Subject already exists: " + s.getName());
+            validateTasks(s);
+        }
+        int index = manager.categoryCount();
+        manager.insertCategory(index, category);
+        log(Mutation.addCategory(category.getName(), category.getId()), () -> manager.removeCategoryAt(index));
+        for (Subject s : category.getSubjects()) logContents(category.getName(), s);
+        note(ChangeEvent.category(ChangeEvent.Kind.ADDED, category.getId(), category.getName(), null));
+    }
+
+    public void removeCategory(String name) {
+        checkOpen();
+        validateName(name, "Category");
+        boolean removed = false;
+        for (int i = manager.categoryCount() - 1; i >= 0; i--) {
+            Category c = manager.categoryAt(i);
+            if (!c.getName().equals(name)) continue;
+            int index = i;
+            manager.removeCategoryAt(index);
+            undo.push(() -> manager.insertCategory(index, c));
+            note(ChangeEvent.category(ChangeEvent.Kind.REMOVED, c.getId(), name, null));
+            removed = true;
+        }
+        if (removed) mutations.add(Mutation.removeCategory(name));
+    }
+
+    public void editCategory(String oldName, String newName) {
+        checkOpen();
+        validateName(oldName, "Category");
+        validateName(newName, "Category");
+        Category cat = manager.category(oldName);
+        if (cat == null) return;
+        if (manager.category(newName) != null)
+            throw new IllegalArgumentException("Category already exists: " + newName);
+        cat.setName(newName);
+        log(Mutation.renameCategory(oldName, newName), () -> cat.setName(oldName));
+        note(ChangeEvent.category(ChangeEvent.Kind.RENAMED, cat.getId(), newName, oldName));
+    }
+
+    // --- Subject operations ---
+    public void addSubject(String categoryName, Subject subject) {
+        checkOpen();
+        if (subject == null) throw new IllegalArgumentException("Subject cannot be null.");
+        validateName(categoryName, "Category");
+        validateName(subject.getName(), "Subject");
+        Category cat = manager.category(categoryName);
+        if (cat == null) throw new IllegalArgumentException("Category not found: " + categoryName
+                + CategoryManager.didYouMean(manager.categorySuggestions(categoryName, 3)));
+        if (cat.getSubject(subject.getName()) != null)
+            throw new IllegalArgumentException("Subject already exists: " + subject.getName());
+        validateTasks(subject);
+        cat.addSubject(subject);
+        log(Mutation.addSubject(categoryName, subject.getName(), subject.getId()), () -> cat.removeSubject(subject));
+        for (Task t : subject.getTasks()) mutations.add(Mutation.putTask(categoryName, subject.getName(), null, t));
+        note(ChangeEvent.subject(ChangeEvent.Kind.ADDED, subject.getId(), categoryName, subject.getName(), null));
+    }
+
+    public void removeSubject(String categoryName, String subjectName) {
+        checkOpen();
+        validateName(categoryName, "Category");
+        validateName(subjectName, "Subject");
+        Category cat = manager.category(categoryName);
+        Subject target = cat != null ? cat.getSubject(subjectName) : null;
+        if (target == null) return;
+        int index = indexOf(cat.getSubjects(), target);
+        if (cat.removeSubject(target)) {
+            log(Mutation.removeSubject(categoryName, subjectName), () -> cat.addSubject(index, target));
+            note(ChangeEvent.subject(ChangeEvent.Kind.REMOVED, target.getId(), categoryName, subjectName, null));
+        }
+    }
+
+    public void editSubject(String categoryName, String oldName, String newName) {
+        checkOpen();
+        validateName(categoryName, "Category");
+        validateName(oldName, "Subject");
+        validateName(newName, "Subject");
+        Category cat = manager.category(categoryName);
+        if (cat == null) return;
+        if (cat.getSubject(newName) != null)
+            throw new IllegalArgumentException("Subject already exists: " + newName);
+        Subject target = cat.getSubject(oldName);
+        if (target == null) return;
+        target.setName(newName);
+        log(Mutation.renameSubject(categoryName, oldName, newName), () -> target.setName(oldName));
+        note(ChangeEvent.subject(ChangeEvent.Kind.RENAMED, target.getId(), categoryName, newName, oldName));
+    }
+
+    // --- Task operations ---
+    public void addTask(String categoryName, String subjectName, Task task) {
+        checkOpen();
+        if (task == null) throw new IllegalArgumentException("Task cannot be null.");
+        validateName(categoryName, "Category");
+        validateName(subjectName, "Subject");
+        validateName(task.getName(), "Task");
+        Subject subj = manager.subject(categoryName, subjectName);
+        if (subj == null) throw new IllegalArgumentException("Subject not found: " + subjectName
+                + CategoryManager.didYouMean(manager.subjectSuggestions(categoryName, subjectName, 3)));
+        if (subj.getTask(task.getName()) != null)
+            throw new IllegalArgumentException("Task already exists: " + task.getName());
+        subj.addTask(task);
+        log(Mutation.putTask(categoryName, subjectName, null, task), () -> subj.removeTask(task));
+        note(ChangeEvent.task(ChangeEvent.Kind.ADDED, task.getId(), categoryName, subjectName, task.getName(), null, null, view(task)));
+    }
+
+    public void removeTask(String categoryName, String subjectName, String taskName) {
+        checkOpen();
+        validateName(categoryName, "Category");
+        validateName(subjectName, "Subject");
+        validateName(taskName, "Task");
+        Subject subj = manager.subject(categoryName, subjectName);
+        Task target = subj != null ? subj.getTask(taskName) : null;
+        if (target == null) return;
+        int index = indexOf(subj.getTasks(), target);
+        TaskView before = view(target);
+        if (subj.removeTask(target)) {
+            log(Mutation.removeTask(categoryName, subjectName, taskName), () -> subj.addTask(index, target));
+            note(ChangeEvent.task(ChangeEvent.Kind.REMOVED, target.getId(), categoryName, subjectName, taskName, null, before, null));
+        }
+    }
+
+    public void editTask(String categoryName, String subjectName, String oldName, Task newTask) {
+        checkOpen();
+        if (newTask == null) throw new IllegalArgumentException("Task cannot be null.");
+        validateName(categoryName, "Category");
+        validateName(subjectName, "Subject");
+        validateName(oldName, "Task");
+        validateName(newTask.getName(), "Task");
+        Subject subj = manager.subject(categoryName, subjectName);
+        Task target = subj != null ? subj.getTask(oldName) : null;
+        if (target == null) return;
+        if (!oldName.equals(newTask.getName()) && subj.getTask(newTask.getName()) != null)
+            throw new IllegalArgumentException("Task already exists: " + newTask.getName());
+
+        // registered before applying, so a setter that rejects its value still gets rolled back
+        TaskView before = view(target);
+        String description = target.getDescription();
+        Difficulty difficulty = target.getDifficulty();
+        LocalDateTime dueDate = target.getDueDate();
+        boolean completed = target.isCompleted();
+        LocalDateTime lastAccessed = target.getLastAccessed();
+        undo.push(() -> {
+            target.setName(oldName);
+            target.setDescription(description);
+            target.setDifficulty(difficulty);
+            target.restoreDueDate(dueDate);
+            target.setCompleted(completed);
+            target.setLastAccessed(lastAccessed);
+        });
+        target.setName(newTask.getName());
+        target.setDescription(newTask.getDescription());
+        target.setDifficulty(newTask.getDifficulty());
+        target.setDueDate(newTask.getDueDate());
+        target.setCompleted(newTask.isCompleted());
+        target.setLastAccessed(newTask.getLastAccessed());
+        mutations.add(Mutation.putTask(categoryName, subjectName, oldName, target));
+        note(ChangeEvent.task(ChangeEvent.Kind.UPDATED, target.getId(), categoryName, subjectName, target.getName(), oldName, before, view(target)));
+    }
+
+    public void addTaskLink(String categoryName, String subjectName, String taskName, String linkName, String url) {
+        checkOpen();
+        Task task = manager.task(categoryName, subjectName, taskName);
+        if (task == null) return;
+        String previous = task.getLink(linkName);
+        TaskView before = view(task);
+        task.addLink(linkName, url);
+        log(Mutation.putTask(categoryName, subjectName, taskName, task),
+                () -> { if (previous == null) task.removeLink(linkName); else task.addLink(linkName, previous); });
+        note(ChangeEvent.task(ChangeEvent.Kind.UPDATED, task.getId(), categoryName, subjectName, taskName, taskName, before, view(task)));
+    }
+
+    public void removeTaskLink(String categoryName, String subjectName, String taskName, String linkName) {
+        checkOpen();
+        Task task = manager.task(categoryName, subjectName, taskName);
+        String previous = task != null ? task.getLink(linkName) : null;
+        if (previous == null) return;
+        TaskView before = view(task);
+        task.removeLink(linkName);
+        log(Mutation.putTask(categoryName, subjectName, taskName, task), () -> task.addLink(linkName, previous));
+        note(ChangeEvent.task(ChangeEvent.Kind.UPDATED, task.getId(), categoryName, subjectName, taskName, taskName, before, view(task)));
+    }
+
+    // --- Operations by id ---
+    // These resolve to the name-based operations, which are what the journal records. If an earlier
+    // sibling shares the name, replay would hit that one instead, so such an id is refused.
+    public void editCategory(long id, String newName) {
+        checkOpen();
+        Category cat = manager.categoryById(id);
+        if (cat == null) return;
+        requireFirst(manager.category(cat.getName()) == cat, "Category", cat.getName());
+        editCategory(cat.getName(), newName);
+    }
+
+    public void editSubject(long id, String newName) {
+        checkOpen();
+        Subject subj = manager.subjectById(id);
+        if (subj == null) return;
+        Category cat = subj.getCategory();
+        requireFirst(manager.category(cat.getName()) == cat && cat.getSubject(subj.getName()) == subj, "Subject", subj.getName());
+        editSubject(cat.getName(), subj.getName(), newName);
+    }
+
+    public void removeSubject(long id) {
+        checkOpen();
+        Subject subj = manager.subjectById(id);
+        if (subj == null) return;
+        Category cat = subj.getCategory();
+        requireFirst(manager.category(cat.getName()) == cat && cat.getSubject(subj.getName()) == subj, "Subject", subj.getName());
+        removeSubject(cat.getName(), subj.getName());
+    }
+
+    public void editTask(long id, Task newTask) {
+        checkOpen();
+        Task task = manager.taskById(id);
+        if (task == null) return;
+        editTask(pathOf(task), task.getSubject().getName(), task.getName(), newTask);
+    }
+
+    public void removeTask(long id) {
+        checkOpen();
+        Task task = manager.taskById(id);
+        if (task == null) return;
+        removeTask(pathOf(task), task.getSubject().getName(), task.getName());
+    }
+
+    /** The category name of {@code task}, after checking its names lead back to it. */
+    private String pathOf(Task task) {
+        Subject subj = task.getSubject();
+        Category cat = subj.getCategory();
+        requireFirst(manager.task(cat.getName(), subj.getName(), task.getName()) == task, "Task", task.getName());
+        return cat.getName();
+    }
+
+    private static void requireFirst(boolean first, String type, String name) {
+        if (!first) throw new IllegalArgumentException(type + " name is ambiguous: " + name);
+    }
+
+    // --- Bookkeeping ---
+    /** Journals a subject that arrived inside a new category, with its tasks; undoing the category takes them along. */
+    private void logContents(String categoryName, Subject subject) {
+        mutations.add(Mutation.addSubject(categoryName, subject.getName(), subject.getId()));
+        for (Task t : subject.getTasks()) mutations.add(Mutation.putTask(categoryName, subject.getName(), null, t));
+    }
+
+    // replay finds tasks by name, so a prepopulated subject must hold each name once
+    private static void validateTasks(Subject subject) {
+        Set<String> names = new HashSet<>();
+        for (Task t : subject.getTasks()) {
+            validateName(t.getName(), "Task");
+            if (!names.add(t.getName())) throw new IllegalArgumentException("Task already exists: " + t.getName());
+        }
+    }
+
+    private void log(Mutation mutation, Runnable undoStep) {
+        mutations.add(mutation);
+        undo.push(undoStep);
+    }
+
+    private void note(ChangeEvent event) {
+        if (observed) events.add(event);
+    }
+
+    private TaskView view(Task task) {
+        return observed ? new TaskView(task) : null;
+    }
+
+    /** Closes the transaction and hands back the records to journal. */
+    List<Mutation> commit() {
+        closed = true;
+        undo.clear();
+        return mutations;
+    }
+
+    List<ChangeEvent> events() {
+        return events;
+    }
+
+    /** Undoes everything applied so far; a failing undo step is attached to {@code cause}. */
+    void rollback(Throwable cause) {
+        closed = true;
+        while (!undo.isEmpty()) {
+            try {
+                undo.pop().run();
+            } catch (RuntimeException e) {
+                cause.addSuppressed(e);
+            }
+        }
+        mutations.clear();
+        events.clear();
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("Transaction is no longer open.");
+    }
+
+    private static void validateName(String name, String type) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException(type + " name cannot be empty");
+        }
+    }
+
+    private static <T> int indexOf(List<T> list, T item) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == item) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,114 @@
+package domein;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable picture of the whole category tree. Nodes are cached on the domain objects they copy
+ * and dropped when something beneath them changes, so a new snapshot rebuilds only the path to what
+ * changed and shares every other category, subject and task node with the previous one. Readers can
+ * keep a snapshot as long as they like without locking or copying.
+ */
+public final class TreeSnapshot {
+    private final List<CategoryNode> categories;
+    private final int taskCount;
+
+    private TreeSnapshot(List<CategoryNode> categories) {
+        this.categories = Collections.unmodifiableList(categories);
+        int tasks = 0;
+        for (CategoryNode c : categories) tasks += c.taskCount;
+        this.taskCount = tasks;
+    }
+
+    /** Assembles a snapshot from {@code categories}, reusing every cached node that is still valid. */
+    static TreeSnapshot of(List<Category> categories) {
+        List<CategoryNode> nodes = new ArrayList<>(categories.size());
+        for (Category c : categories) {
+            if (c.node == null) c.node = new CategoryNode(c);
+            nodes.add(c.node);
+        }
+        return new TreeSnapshot(nodes);
+    }
+
+    public List<CategoryNode> getCategories() { return categories; }
+    public int getTaskCount() { return taskCount; }
+
+    public CategoryNode getCategory(String name) {
+        for (CategoryNode c : categories) {
+            if (c.name.equals(name)) return c;
+        }
+        return null;
+    }
+
+    public static final class CategoryNode {
+        private final long id;
+        private final String name;
+        private final List<SubjectNode> subjects;
+        private final int taskCount;
+
+        private CategoryNode(Category category) {
+            this.id = category.getId();
+            this.name = category.getName();
+            List<SubjectNode> nodes = new ArrayList<>(category.getSubjects().size());
+            int tasks = 0;
+            for (Subject s : category.getSubjects()) {
+                if (s.node == null || !s.node.categoryName.equals(name)) s.node = new SubjectNode(s, name);
+                nodes.add(s.node);
+                tasks += s.node.tasks.size();
+            }
+            this.subjects = Collections.unmodifiableList(nodes);
+            this.taskCount = tasks;
+        }
+
+        public long getId() { return id; }
+        public String getName() { return name; }
+        public List<SubjectNode> getSubjects() { return subjects; }
+        public int getTaskCount() { return taskCount; }
+
+        public SubjectNode getSubject(String name) {
+            for (SubjectNode s : subjects) {
+                if (s.name.equals(name)) return s;
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (Subjects: " + subjects.size() + ")";
+        }
+    }
+
+    public static final class SubjectNode {
+        private final long id;
+        private final String categoryName;
+        private final String name;
+        private final List<TaskView> tasks;
+
+        private SubjectNode(Subject subject, String categoryName) {
+            this.id = subject.getId();
+            this.categoryName = categoryName;
+            this.name = subject.getName();
+            List<TaskView> views = new ArrayList<>(subject.getTasks().size());
+            for (Task t : subject.getTasks()) {
+                // a cached view also records its parents' names, which a rename upstream makes stale
+                TaskView v = t.view;
+                if (v == null || !name.equals(v.getSubjectName()) || !categoryName.equals(v.getCategoryName())) {
+                    v = new TaskView(t);
+                    t.view = v;
+                }
+                views.add(v);
+            }
+            this.tasks = Collections.unmodifiableList(views);
+        }
+
+        public long getId() { return id; }
+        public String getName() { return name; }
+        public List<TaskView> getTasks() { return tasks; }
+
+        @Override
+        public String toString() {
+            return name + " (Tasks: " + tasks.size() + ")";
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package gui;
 
 import domein.CategoryController;
+import domein.CategoryView;
+import domein.ChangeEvent;
 import domein.Difficulty;
+import domein.SubjectView;
+import domein.TaskView;
 import javafx.animation.FadeTransition;
 import javafx.animation.TranslateTransition;
 import javafx.application.HostServices;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.control.*;
@@ -19,9 +24,7 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 public class CoursesPage extends VBox {
 
@@ -29,6 +32,26 @@ public class CoursesPage extends VBox {
     private final VBox contentBox;
     private final HostServices hostServices;
     private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("H:mm");
+    private static final DateTimeFormatter DUE_FMT = DateTimeFormatter.ofPattern("dd-MM-yy HH:mm");
+    // cards on screen by path; subject and task cards only exist once their parent has been expanded
+    private final Map<String, Card> cards = new HashMap<>();
+
+    private static final class Card {
+        final VBox wrapper;
+        final Label meta;
+        final VBox children;
+        final String unit;
+        int count;
+        boolean filled;
+
+        Card(VBox wrapper, Label meta, VBox children, String unit, int count) {
+            this.wrapper = wrapper;
+            this.meta = meta;
+            this.children = children;
+            this.unit = unit;
+            this.count = count;
+        }
+    }
 
     public CoursesPage(HostServices hostServices, CategoryController controller) {
         this.hostServices = hostServices;
@@ -59,7 +82,6 @@ public class CoursesPage extends VBox {
             dialog.showAndWait().ifPresent(input -> {
                 try {
                     controller.addCategory(input.trim());
-                    refresh();
                 } catch (Exception ex) {
                     new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait();
                 }
@@ -93,15 +115,137 @@ public class CoursesPage extends VBox {
         );
         getChildren().addAll(topRow, sp);
         buildCourses();
+        controller.addChangeListener(this::apply, Platform::runLater);
     }
 
     private void buildCourses() {
         contentBox.getChildren().clear();
-        List<String> categories = parseCategories(controller.categoriesToString());
-        for (String category : categories) {
-            contentBox.getChildren().add(createCategoryCard(category));
+        cards.clear();
+        for (CategoryView category : controller.getCategoryViews()) {
+            contentBox.getChildren().add(createCategoryCard(category.getName(), category.getSubjectCount()));
+        }
+    }
+
+    // --- Incremental updates ---
+    /** Patches only the cards a committed change touched; cards that were never built are left for their first expansion. */
+    private void apply(List<ChangeEvent> events) {
+        for (ChangeEvent e : events) {
+            switch (e.getLevel()) {
+                case CATEGORY -> applyCategory(e);
+                case SUBJECT -> applySubject(e);
+                case TASK -> applyTask(e);
+            }
+        }
+    }
+
+    private void applyCategory(ChangeEvent e) {
+        switch (e.getKind()) {
+            case ADDED -> {
+                if (!cards.containsKey(key(e.getName()))) contentBox.getChildren().add(createCategoryCard(e.getName(), 0));
+            }
+            case REMOVED -> {
+                Card card = cards.get(key(e.getName()));
+                if (card != null) {
+                    contentBox.getChildren().remove(card.wrapper);
+                    forget(key(e.getName()));
+                }
+            }
+            case RENAMED -> {
+                replace(key(e.getOldName()), old -> createCategoryCard(e.getName(), old.count));
+            }
+            default -> { }
+        }
+    }
+
+    private void applySubject(ChangeEvent e) {
+        String categoryName = e.getCategoryName();
+        Card parent = cards.get(key(categoryName));
+        if (parent == null) return;
+        switch (e.getKind()) {
+            case ADDED -> {
+                recount(parent, 1);
+                if (parent.filled) {
+                    parent.children.getChildren().removeIf(n -> n instanceof Label);
+                    parent.children.getChildren().add(createSubjectCard(categoryName, e.getName(), 0));
+                }
+            }
+            case REMOVED -> {
+                recount(parent, -1);
+                Card card = cards.get(key(categoryName, e.getName()));
+                if (card != null) {
+                    parent.children.getChildren().remove(card.wrapper);
+                    forget(key(categoryName, e.getName()));
+                }
+                if (parent.filled && parent.children.getChildren().isEmpty()) parent.children.getChildren().add(placeholder("No subjects"));
+            }
+            case RENAMED -> {
+                replace(key(categoryName, e.getOldName()), old -> createSubjectCard(categoryName, e.getName(), old.count));
+            }
+            default -> { }
+        }
+    }
+
+    private void applyTask(ChangeEvent e) {
+        String categoryName = e.getCategoryName();
+        String subjectName = e.getSubjectName();
+        Card parent = cards.get(key(categoryName, subjectName));
+        if (parent == null) return;
+        switch (e.getKind()) {
+            case ADDED -> {
+                recount(parent, 1);
+                if (parent.filled) {
+                    parent.children.getChildren().removeIf(n -> n instanceof Label);
+                    parent.children.getChildren().add(createTaskCard(categoryName, subjectName, e.getAfter()));
+                }
+            }
+            case REMOVED -> {
+                recount(parent, -1);
+                Card card = cards.get(key(categoryName, subjectName, e.getName()));
+                if (card != null) {
+                    parent.children.getChildren().remove(card.wrapper);
+                    forget(key(categoryName, subjectName, e.getName()));
+                }
+                if (parent.filled && parent.children.getChildren().isEmpty()) parent.children.getChildren().add(placeholder("No tasks"));
+            }
+            case UPDATED -> replace(key(categoryName, subjectName, e.getOldName()), old -> createTaskCard(categoryName, subjectName, e.getAfter()));
+            default -> { }
+        }
+    }
+
+    private static String key(String... path) {
+        return String.join("\0", path);
+    }
+
+    private void forget(String key) {
+        String below = key + "\0";
+        cards.keySet().removeIf(k -> k.equals(key) || k.startsWith(below));
+    }
+
+    /**
+     * Swaps the card registered under {@code oldKey} for the one {@code fresh} builds, in the same position.
+     * The old entry is dropped before building, since the new card registers itself and may reuse the key.
+     */
+    private void replace(String oldKey, Function<Card, VBox> fresh) {
+        Card old = cards.get(oldKey);
+        if (old == null) return;
+        forget(oldKey);
+        VBox card = fresh.apply(old);
+        if (old.wrapper.getParent() instanceof Pane parent) {
+            List<Node> siblings = parent.getChildren();
+            siblings.set(siblings.indexOf(old.wrapper), card);
         }
     }
+
+    private void recount(Card card, int delta) {
+        card.count += delta;
+        card.meta.setText(card.count + " " + card.unit);
+    }
+
+    private static Label placeholder(String text) {
+        Label none = new Label(text);
+        none.setStyle("-fx-text-fill: #7f8c8d;");
+        return none;
+    }
     
     private void styleAccentButton(Button b) {
         b.setStyle(
@@ -120,7 +264,7 @@ public class CoursesPage extends VBox {
         b.setOnMouseExited(e -> stylePrimaryButtonSmall(b));
     }
 
-    private VBox createCategoryCard(String categoryName) {
+    private VBox createCategoryCard(String categoryName, int subjectCount) {
         VBox wrapper = new VBox(8);
         wrapper.setPadding(new Insets(6));
 
@@ -137,7 +281,6 @@ public class CoursesPage extends VBox {
         Label name = new Label(categoryName);
         name.setStyle("-fx-font-size: 18px; -fx-text-fill: #2c3e50; -fx-font-weight: 600;");
 
-        int subjectCount = safeGetSubjects(categoryName).size();
         Label meta = new Label(subjectCount + " subjects");
         meta.setStyle("-fx-text-fill: #95a5a6; -fx-font-size: 12px;");
 
@@ -158,7 +301,6 @@ public class CoursesPage extends VBox {
             dialog.showAndWait().ifPresent(input -> {
                 try {
                     controller.addSubject(categoryName, input.trim());
-                    refresh();
                 } catch (Exception ex) {
                     new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait();
                 }
@@ -175,7 +317,6 @@ public class CoursesPage extends VBox {
             dialog.showAndWait().ifPresent(input -> {
                 try {
                     controller.editCategory(categoryName, input.trim());
-                    refresh();
                 } catch (Exception ex) {
                     new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait();
                 }
@@ -193,7 +334,6 @@ public class CoursesPage extends VBox {
                 if (bt == ButtonType.YES) {
                     try {
                         controller.removeCategory(categoryName);
-                        refresh();
                     } catch (Exception ex) {
                         new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait();
                     }
@@ -212,20 +352,13 @@ public class CoursesPage extends VBox {
         subjectsContainer.setVisible(false);
         subjectsContainer.setManaged(false);
 
-        List<String> subjects = safeGetSubjects(categoryName);
-        if (subjects.isEmpty()) {
-            Label none = new Label("No subjects");
-            none.setStyle("-fx-text-fill: #7f8c8d;");
-            subjectsContainer.getChildren().add(none);
-        } else {
-            for (String subj : subjects) {
-                subjectsContainer.getChildren().add(createSubjectCard(categoryName, subj));
-            }
-        }
+        Card registered = new Card(wrapper, meta, subjectsContainer, "subjects", subjectCount);
+        cards.put(key(categoryName), registered);
 
         headerRow.setOnMouseClicked(ev -> {
             if (isEventFromAction(ev.getTarget(), actions)) return;
             boolean show = !subjectsContainer.isVisible();
+            if (show && !registered.filled) fillSubjects(registered, categoryName);
             toggleContainer(subjectsContainer, show);
             arrow.setText(show ? "▼" : "▶");
         });
@@ -235,7 +368,32 @@ public class CoursesPage extends VBox {
         return wrapper;
     }
 
-    private VBox createSubjectCard(String categoryName, String subjectName) {
+    // subject and task cards are built on first expansion, so a refresh only renders the category headers
+    private void fillSubjects(Card card, String categoryName) {
+        card.filled = true;
+        List<SubjectView> subjects = controller.getSubjectViews(categoryName);
+        if (subjects.isEmpty()) {
+            card.children.getChildren().add(placeholder("No subjects"));
+            return;
+        }
+        for (SubjectView subject : subjects) {
+            card.children.getChildren().add(createSubjectCard(categoryName, subject.getName(), subject.getTaskCount()));
+        }
+    }
+
+    private void fillTasks(Card card, String categoryName, String subjectName) {
+        card.filled = true;
+        List<TaskView> tasks = controller.getTaskViews(categoryName, subjectName);
+        if (tasks.isEmpty()) {
+            card.children.getChildren().add(placeholder("No tasks"));
+            return;
+        }
+        for (TaskView task : tasks) {
+            card.children.getChildren().add(createTaskCard(categoryName, subjectName, task));
+        }
+    }
+
+    private VBox createSubjectCard(String categoryName, String subjectName, int taskCount) {
         VBox wrapper = new VBox(6);
         wrapper.setPadding(new Insets(2));
 
@@ -252,7 +410,6 @@ public class CoursesPage extends VBox {
         Label name = new Label(subjectName);
         name.setStyle("-fx-font-size: 15px; -fx-text-fill: #34495e; -fx-font-weight: 600;");
 
-        int taskCount = safeGetTasks(categoryName, subjectName).size();
         Label meta = new Label(taskCount + " tasks");
         meta.setStyle("-fx-text-fill: #95a5a6; -fx-font-size: 11px;");
 
@@ -280,21 +437,13 @@ public class CoursesPage extends VBox {
         tasksContainer.setVisible(false);
         tasksContainer.setManaged(false);
 
-        List<String> tasks = safeGetTasks(categoryName, subjectName);
-        if (tasks.isEmpty()) {
-            Label none = new Label("No tasks");
-            none.setStyle("-fx-text-fill: #7f8c8d;");
-            tasksContainer.getChildren().add(none);
-        } else {
-            for (String tline : tasks) {
-                TaskInfo info = parseTaskLine(tline);
-                tasksContainer.getChildren().add(createTaskCard(categoryName, subjectName, info));
-            }
-        }
+        Card registered = new Card(wrapper, meta, tasksContainer, "tasks", taskCount);
+        cards.put(key(categoryName, subjectName), registered);
 
         headerRow.setOnMouseClicked(ev -> {
             if (isEventFromAction(ev.getTarget(), actions)) return;
             boolean show = !tasksContainer.isVisible();
+            if (show && !registered.filled) fillTasks(registered, categoryName, subjectName);
             toggleContainer(tasksContainer, show);
             arrow.setText(show ? "▼" : "▶");
         });
@@ -309,7 +458,6 @@ public class CoursesPage extends VBox {
             dialog.showAndWait().ifPresent(newName -> {
                 try {
                     controller.editSubject(categoryName, subjectName, newName.trim());
-                    refresh();
                 } catch (Exception ex) {
                     new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait();
                 }
@@ -325,7 +473,6 @@ public class CoursesPage extends VBox {
                 if (btn == ButtonType.YES) {
                     try {
                         controller.removeSubject(categoryName, subjectName);
-                        refresh();
                     } catch (Exception ex) {
                         new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait();
                     }
@@ -338,7 +485,7 @@ public class CoursesPage extends VBox {
         return wrapper;
     }
 
-    private VBox createTaskCard(String categoryName, String subjectName, TaskInfo info) {
+    private VBox createTaskCard(String categoryName, String subjectName, TaskView info) {
         VBox wrapper = new VBox();
         wrapper.setPadding(new Insets(6));
 
@@ -354,24 +501,24 @@ public class CoursesPage extends VBox {
         );
         card.setEffect(new DropShadow(4, Color.rgb(10, 20, 40, 0.06)));
 
-        if (info.completed) {
+        if (info.isCompleted()) {
             card.setStyle(completedBackground + "-fx-background-radius: 8; -fx-border-radius: 8; -fx-border-color: rgba(0,0,0,0.03);");
         }
 
         VBox infoBox = new VBox(6);
-        Label name = new Label(info.name);
+        Label name = new Label(info.getName());
         name.setStyle("-fx-font-size: 14px; -fx-font-weight: 700; -fx-text-fill: #2c3e50;");
-        Label desc = new Label(info.description != null && !info.description.isBlank() ? info.description : "No description");
+        Label desc = new Label(info.getDescription() != null && !info.getDescription().isBlank() ? info.getDescription() : "No description");
         desc.setStyle("-fx-font-size: 12px; -fx-text-fill: #566573;");
         desc.setWrapText(true);
         desc.setMaxWidth(520);
 
         infoBox.getChildren().addAll(name, desc);
 
-        if (info.links != null && !info.links.isEmpty()) {
+        if (!info.getLinks().isEmpty()) {
             VBox linksBox = new VBox(4);
             linksBox.setPadding(new Insets(6, 0, 0, 0));
-            for (Map.Entry<String, String> e : info.links.entrySet()) {
+            for (Map.Entry<String, String> e : info.getLinks().entrySet()) {
                 String linkName = e.getKey();
                 String url = e.getValue();
                 Hyperlink link = new Hyperlink(linkName);
@@ -390,10 +537,10 @@ public class CoursesPage extends VBox {
         metaBox.setPadding(new Insets(2, 0, 0, 0));
         metaBox.setPrefWidth(160);
 
-        Label dueLabel = new Label(info.due == null ? "" : "⏰ " + info.due);
+        Label dueLabel = new Label(info.getDueDate() == null ? "" : "⏰ " + info.getDueDate().format(DUE_FMT));
         dueLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #34495e; -fx-font-weight: 600;");
 
-        Label diffLabel = new Label("Difficulty: " + (info.difficulty == null ? "?" : info.difficulty));
+        Label diffLabel = new Label("Difficulty: " + (info.getDifficulty() == null ? "?" : info.getDifficulty()));
         diffLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #7f8c8d;");
 
         metaBox.getChildren().addAll(dueLabel, diffLabel);
@@ -411,20 +558,22 @@ public class CoursesPage extends VBox {
         removeBtn.setMaxWidth(Double.MAX_VALUE);
         removeBtn.setStyle("-fx-background-color: #c0392b; -fx-text-fill: white; -fx-background-radius: 6;");
         removeBtn.setOnAction(e -> {
-            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION, "Delete task \"" + info.name + "\"?", ButtonType.YES, ButtonType.NO);
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION, "Delete task \"" + info.getName() + "\"?", ButtonType.YES, ButtonType.NO);
             confirm.setHeaderText("Delete Task");
             confirm.showAndWait().ifPresent(bt -> {
                 if (bt == ButtonType.YES) {
                     try {
-                        controller.removeTask(categoryName, subjectName, info.name);
-                        refresh();
+                        controller.removeTask(categoryName, subjectName, info.getName());
                     } catch (Exception ex) {
-                        String stored = controller.tasksToString(categoryName, subjectName);
+                        StringBuilder stored = new StringBuilder();
+                        for (TaskView t : controller.getTaskViews(categoryName, subjectName)) {
+                            stored.append(t).append(System.lineSeparator());
+                        }
                         Alert a = new Alert(Alert.AlertType.ERROR);
                         a.setTitle("Failed to delete task");
-                        a.setHeaderText("Could not delete task: " + info.name);
+                        a.setHeaderText("Could not delete task: " + info.getName());
                         a.setContentText(ex.getMessage() == null ? "(no message)" : ex.getMessage());
-                        TextArea area = new TextArea(stored == null ? "" : stored);
+                        TextArea area = new TextArea(stored.toString());
                         area.setEditable(false);
                         area.setWrapText(true);
                         a.getDialogPane().setExpandableContent(area);
@@ -434,12 +583,12 @@ public class CoursesPage extends VBox {
             });
         });
 
-        ToggleButton finishBtn = new ToggleButton(info.completed ? "Finished" : "Finish");
+        ToggleButton finishBtn = new ToggleButton(info.isCompleted() ? "Finished" : "Finish");
         finishBtn.setMinHeight(36);
         finishBtn.setMaxWidth(Double.MAX_VALUE);
-        finishBtn.setStyle(info.completed ? "-fx-background-color: #27ae60; -fx-text-fill: white; -fx-background-radius: 6;" :
+        finishBtn.setStyle(info.isCompleted() ? "-fx-background-color: #27ae60; -fx-text-fill: white; -fx-background-radius: 6;" :
                 "-fx-background-color: #f1c40f; -fx-text-fill: white; -fx-background-radius: 6;");
-        finishBtn.setSelected(info.completed);
+        finishBtn.setSelected(info.isCompleted());
         finishBtn.setOnAction(ev -> {
             boolean nowFinished = finishBtn.isSelected();
             if (nowFinished) {
@@ -461,10 +610,11 @@ public class CoursesPage extends VBox {
         card.getChildren().addAll(infoBox, metaBox, actions);
 
         wrapper.getChildren().add(card);
+        cards.put(key(categoryName, subjectName, info.getName()), new Card(wrapper, null, null, null, 0));
         return wrapper;
     }
 
-    private void showAddTaskDialog(String categoryName, String subjectName, TaskInfo prefill) {
+    private void showAddTaskDialog(String categoryName, String subjectName, TaskView prefill) {
         Dialog<ButtonType> dlg = new Dialog<>();
         dlg.setTitle(prefill == null ? "Add Task" : "Edit Task");
         dlg.setHeaderText((prefill == null ? "Create a new task for " : "Edit task \"") + subjectName + (prefill == null ? "\"" : "\""));
@@ -493,21 +643,16 @@ public class CoursesPage extends VBox {
         addLinkRowBtn.setOnAction(e -> linksList.getChildren().add(makeLinkRow("", "")));
 
         if (prefill != null) {
-            nameField.setText(prefill.name);
-            descArea.setText(prefill.description);
-            if (prefill.difficulty != null) {
-                try { diffChoice.setValue(Difficulty.valueOf(prefill.difficulty)); } catch (Exception ignored) {}
-            }
-            if (prefill.due != null) {
-                try {
-                    DateTimeFormatter f = DateTimeFormatter.ofPattern("dd-MM-yy HH:mm");
-                    LocalDateTime dt = LocalDateTime.parse(prefill.due, f);
-                    datePicker.setValue(dt.toLocalDate());
-                    timeField.setText(dt.toLocalTime().getHour() + ":" + String.format("%02d", dt.toLocalTime().getMinute()));
-                } catch (Exception ignored) { }
+            nameField.setText(prefill.getName());
+            descArea.setText(prefill.getDescription());
+            if (prefill.getDifficulty() != null) diffChoice.setValue(prefill.getDifficulty());
+            if (prefill.getDueDate() != null) {
+                LocalDateTime dt = prefill.getDueDate();
+                datePicker.setValue(dt.toLocalDate());
+                timeField.setText(dt.toLocalTime().format(TIME_FMT));
             }
-            if (prefill.links != null && !prefill.links.isEmpty()) {
-                for (Map.Entry<String, String> en : prefill.links.entrySet()) {
+            if (!prefill.getLinks().isEmpty()) {
+                for (Map.Entry<String, String> en : prefill.getLinks().entrySet()) {
                     linksList.getChildren().add(makeLinkRow(en.getKey(), en.getValue()));
                 }
             }
@@ -554,11 +699,7 @@ public class CoursesPage extends VBox {
                     return;
                 }
             }
-            LocalDateTime due = null;
-            if (date != null) {
-                if (time == null) time = LocalTime.of(23, 59);
-                due = LocalDateTime.of(date, time);
-            }
+            LocalDateTime due = date == null ? null : LocalDateTime.of(date, time != null ? time : LocalTime.of(23, 59));
 
             Map<String,String> links = new LinkedHashMap<>();
             for (Node n : linksList.getChildren()) {
@@ -575,22 +716,22 @@ public class CoursesPage extends VBox {
             }
 
             try {
-                if (prefill == null) {
-                    controller.addTask(categoryName, subjectName, name, desc, diff, due);
-                    for (Map.Entry<String,String> en : links.entrySet()) {
-                        controller.addTaskLink(categoryName, subjectName, name, en.getKey(), en.getValue());
-                    }
-                } else {
-                    controller.editTask(categoryName, subjectName, prefill.name, name, desc, diff, due);
-                    Map<String,String> existing = parseLinksString(controller.getTaskLinks(categoryName, subjectName, name));
-                    for (String ln : existing.keySet()) {
-                        try { controller.removeTaskLink(categoryName, subjectName, name, ln); } catch (Exception ignored) {}
+                // one batch, so the task and its links are saved and shown together or not at all
+                controller.batch(() -> {
+                    if (prefill == null) {
+                        controller.addTask(categoryName, subjectName, name, desc, diff, due);
+                    } else {
+                        controller.editTask(categoryName, subjectName, prefill.getName(), name, desc, diff, due);
+                        TaskView edited = controller.getTaskView(categoryName, subjectName, name);
+                        Map<String,String> existing = edited != null ? edited.getLinks() : Map.of();
+                        for (String ln : existing.keySet()) {
+                            controller.removeTaskLink(categoryName, subjectName, name, ln);
+                        }
                     }
                     for (Map.Entry<String,String> en : links.entrySet()) {
                         controller.addTaskLink(categoryName, subjectName, name, en.getKey(), en.getValue());
                     }
-                }
-                refresh();
+                });
             } catch (Exception ex) {
                 new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait();
             }
@@ -652,104 +793,6 @@ public class CoursesPage extends VBox {
         }
     }
 
-    private TaskInfo parseTaskLine(String line) {
-        if (line == null || line.isBlank()) return new TaskInfo(line);
-        String cleaned = line.replaceFirst("^\\d+\\.\\s*", "").trim();
-        Pattern p = Pattern.compile(
-                "^Task\\[name='(.*?)', description='(.*?)', difficulty=([^,\\]]+), due=([^,\\]]+), completed=(true|false)(?: \\| Links: (.*?))?(?:,.*)?\\]$"
-        );
-        Matcher m = p.matcher(cleaned);
-        if (m.find()) {
-            String name = m.group(1);
-            String desc = m.group(2);
-            String diff = m.group(3);
-            String due = m.group(4);
-            String completed = m.group(5);
-            String linksRaw = m.group(6);
-
-            Map<String, String> links = new LinkedHashMap<>();
-            if (linksRaw != null && !linksRaw.isBlank()) {
-                String[] parts = linksRaw.split(";");
-                for (String ppart : parts) {
-                    String trimmed = ppart.trim();
-                    if (trimmed.isEmpty()) continue;
-                    String[] kv = trimmed.split("\\s*->\\s*", 2);
-                    if (kv.length == 2) links.put(kv[0].trim(), kv[1].trim());
-                }
-            }
-
-            if ("none".equalsIgnoreCase(due)) due = null;
-
-            return new TaskInfo(name, desc, diff, due, Boolean.parseBoolean(completed), links);
-        }
-
-        Matcher nameOnly = Pattern.compile("name='(.*?)'").matcher(cleaned);
-        if (nameOnly.find()) {
-            String name = nameOnly.group(1);
-            return new TaskInfo(name, "", null, null, false, Map.of());
-        }
-        return new TaskInfo(cleaned);
-    }
-
-    private Map<String,String> parseLinksString(String raw) {
-        Map<String,String> out = new LinkedHashMap<>();
-        if (raw == null || raw.isBlank()) return out;
-        Arrays.stream(raw.split("\\r?\\n"))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .forEach(line -> {
-                    String[] kv = line.split("\\s*->\\s*", 2);
-                    if (kv.length == 2) out.put(kv[0].trim(), kv[1].trim());
-                });
-        return out;
-    }
-
-    private List<String> safeGetSubjects(String categoryCandidate) {
-        String raw = controller.subjectsToString(categoryCandidate);
-        if (raw == null) return List.of();
-        if (raw.startsWith("Category not found")) return List.of();
-        return parseSubjects(raw);
-    }
-
-    private List<String> safeGetTasks(String categoryCandidate, String subjectCandidate) {
-        String raw = controller.tasksToString(categoryCandidate, subjectCandidate);
-        if (raw == null) return List.of();
-        if (raw.startsWith("Subject not found")) return List.of();
-        return parseTasks(raw);
-    }
-
-    private List<String> parseCategories(String raw) {
-        if (raw == null) return List.of();
-        return Arrays.stream(raw.split("\\r?\\n"))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(line -> {
-                    int idx = line.indexOf(" (");
-                    return idx > 0 ? line.substring(0, idx).trim() : line;
-                })
-                .collect(Collectors.toList());
-    }
-
-    private List<String> parseSubjects(String raw) {
-        if (raw == null) return List.of();
-        return Arrays.stream(raw.split("\\r?\\n"))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(line -> {
-                    int idx = line.indexOf(" (");
-                    return idx > 0 ? line.substring(0, idx).trim() : line;
-                })
-                .collect(Collectors.toList());
-    }
-
-    private List<String> parseTasks(String raw) {
-        if (raw == null) return List.of();
-        return Arrays.stream(raw.split("\\r?\\n"))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toList());
-    }
-
     private Button makeMiniButton(String text, String color) {
         Button btn = new Button(text);
         btn.setStyle(
@@ -795,33 +838,6 @@ public class CoursesPage extends VBox {
         }
     }
 
-    private static class TaskInfo {
-        final String name;
-        final String description;
-        final String difficulty;
-        final String due;
-        final boolean completed;
-        final Map<String, String> links;
-
-        TaskInfo(String raw) {
-            this.name = raw;
-            this.description = "";
-            this.difficulty = null;
-            this.due = null;
-            this.completed = false;
-            this.links = Map.of();
-        }
-
-        TaskInfo(String name, String description, String difficulty, String due, boolean completed, Map<String, String> links) {
-            this.name = Objects.requireNonNullElse(name, "");
-            this.description = Objects.requireNonNullElse(description, "");
-            this.difficulty = difficulty;
-            this.due = due;
-            this.completed = completed;
-            this.links = links == null ? Map.of() : new LinkedHashMap<>(links);
-        }
-    }
-
     public void refresh() {
         buildCourses();
     }
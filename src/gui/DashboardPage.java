@@ -1,7 +1,10 @@
 package gui;
 
 import domein.CategoryController;
+import domein.CategoryStats;
+import domein.Task;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.chart.PieChart;
@@ -11,6 +14,11 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public class DashboardPage extends VBox {
 	private final CategoryController controller;
 
@@ -26,19 +34,16 @@ public class DashboardPage extends VBox {
         HBox cardsContainer = new HBox(30);
         cardsContainer.setAlignment(Pos.CENTER);
         cardsContainer.setPadding(new Insets(0, 30, 0, 30));
+        CategoryStats stats = controller.getStats();
+        Task randomTask = controller.getRandomTask();
         cardsContainer.getChildren().addAll(
-                createCard("Total Categories", "12", "#1abc9c"),
-                createCard("Total Subjects", "34", "#3498db"),
-                createCard("Pending Tasks", "7", "#e67e22"),
-                createCard("Random task", controller.getRandomTask().getName(), "#9b59b6")
+                createCard("Total Categories", String.valueOf(stats.getCategoryCount()), "#1abc9c"),
+                createCard("Total Subjects", String.valueOf(stats.getSubjectCount()), "#3498db"),
+                createCard("Pending Tasks", String.valueOf(stats.getPendingCount()), "#e67e22"),
+                createCard("Random task", randomTask != null ? randomTask.getName() : "-", "#9b59b6")
         );
 
-        PieChart categoriesChart = new PieChart(FXCollections.observableArrayList(
-                new PieChart.Data("Science", 5),
-                new PieChart.Data("Math", 7),
-                new PieChart.Data("History", 4),
-                new PieChart.Data("Art", 3)
-        ));
+        PieChart categoriesChart = new PieChart(createCategorySlices());
         categoriesChart.setTitle("Tasks by Category");
         categoriesChart.setLegendVisible(true);
         categoriesChart.setLabelsVisible(true);
@@ -52,11 +57,7 @@ public class DashboardPage extends VBox {
                 createActivityRow("Added new category: Science", "2 days ago"),
                 createActivityRow("Reviewed pending tasks", "3 days ago")
         );
-        VBox upcomingDeadlines = createInfoPanel("Upcoming Deadlines",
-                createActivityRow("Math Homework", "Due: Tomorrow"),
-                createActivityRow("Physics Lab Report", "Due: 3 days"),
-                createActivityRow("History Essay", "Due: 1 week")
-        );
+        VBox upcomingDeadlines = createInfoPanel("Upcoming Deadlines", createDeadlineRows());
         VBox quickNotes = createInfoPanel("Quick Notes",
                 createActivityRow("📌 Remember to revise algebra", ""),
                 createActivityRow("📌 Finish science project slides", ""),
@@ -126,6 +127,32 @@ public class DashboardPage extends VBox {
         return panel;
     }
 
+    private ObservableList<PieChart.Data> createCategorySlices() {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>(controller.getTaskCountsByCategory().entrySet());
+        counts.removeIf(e -> e.getValue() == 0);
+        counts.sort((a, b) -> b.getValue() - a.getValue());
+        ObservableList<PieChart.Data> slices = FXCollections.observableArrayList();
+        int other = 0;
+        for (int i = 0; i < counts.size(); i++) {
+            if (i < 7) slices.add(new PieChart.Data(counts.get(i).getKey(), counts.get(i).getValue()));
+            else other += counts.get(i).getValue();
+        }
+        if (other > 0) slices.add(new PieChart.Data("Other", other));
+        return slices;
+    }
+
+    private HBox[] createDeadlineRows() {
+        List<Task> upcoming = controller.getUpcomingTasks(3);
+        if (upcoming.isEmpty()) return new HBox[] { createActivityRow("No upcoming deadlines", "") };
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("dd-MM-yy HH:mm");
+        HBox[] rows = new HBox[upcoming.size()];
+        for (int i = 0; i < rows.length; i++) {
+            Task t = upcoming.get(i);
+            rows[i] = createActivityRow(t.getName(), "Due: " + t.getDueDate().format(format));
+        }
+        return rows;
+    }
+
     private HBox createActivityRow(String action, String time) {
         HBox row = new HBox(10);
         row.setAlignment(Pos.CENTER_LEFT);
@@ -29,6 +29,9 @@ public class KairosGui extends Application {
 
     @Override
     public void start(Stage primaryStage) {
+        controller.enableWriteBehind(java.time.Duration.ofMillis(250), java.time.Duration.ofSeconds(2));
+        // stop() is skipped when the JVM is killed or exits directly; pending edits must still reach disk
+        Runtime.getRuntime().addShutdownHook(new Thread(controller::flush, "kairos-flush-on-exit"));
         BorderPane root = new BorderPane();
 
         // ---------------- Sidebar ----------------
@@ -112,6 +115,11 @@ public class KairosGui extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        controller.flush();
+    }
+
     private void switchContent(String page) {
         if (!activePage.isEmpty()) {
             Button old = sidebarButtons.get(activePage);
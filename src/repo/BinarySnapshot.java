@@ -0,0 +1,275 @@
+package repo;
+
+import domein.Category;
+import domein.Difficulty;
+import domein.Subject;
+import domein.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot layout (big-endian):
+ * <pre>
+ * int     magic "KRS\1"
+ * short   format version
+ * long    journal sequence
+ * int     string count, then per string: int length + UTF-8 bytes   (category and subject names)
+ * int     category count, then per category: int name ref, long id, int subject count,
+ *           per subject: int name ref, long id, int task count, per task:
+ *             long id, string name, string description, byte difficulty, byte flags,
+ *             long due (epoch seconds, UTC, or NO_DATE), long lastAccessed,
+ *             int link count, per link: string name, string url
+ * </pre>
+ * Version 1 files lack the three id fields; their entities get fresh ids when loaded.
+ */
+final class BinarySnapshot {
+
+    static final int MAGIC = 0x4B525301;
+    static final short VERSION = 2;
+    private static final short VERSION_WITHOUT_IDS = 1;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final byte COMPLETED = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BinarySnapshot() {
+    }
+
+    static boolean matches(ByteBuffer buf) {
+        return buf.remaining() >= 4 && buf.getInt(buf.position()) == MAGIC;
+    }
+
+    // --- Writing ---
+    static void write(List<Category> categories, long sequence, FileChannel channel) throws IOException {
+        Writer out = new Writer(channel);
+        out.ensure(14);
+        out.buf.putInt(MAGIC).putShort(VERSION).putLong(sequence);
+
+        Map<String, Integer> refs = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        for (Category c : categories) {
+            refs.computeIfAbsent(c.getName(), n -> { table.add(n); return table.size() - 1; });
+            for (Subject s : c.getSubjects()) {
+                refs.computeIfAbsent(s.getName(), n -> { table.add(n); return table.size() - 1; });
+            }
+        }
+        out.putInt(table.size());
+        for (String s : table) out.putString(s);
+
+        out.putInt(categories.size());
+        for (Category c : categories) {
+            out.putInt(refs.get(c.getName()));
+            out.putLong(c.getId());
+            out.putInt(c.getSubjects().size());
+            for (Subject s : c.getSubjects()) {
+                out.putInt(refs.get(s.getName()));
+                out.putLong(s.getId());
+                out.putInt(s.getTasks().size());
+                for (Task t : s.getTasks()) {
+                    out.putLong(t.getId());
+                    out.putString(t.getName());
+                    out.putString(t.getDescription());
+                    out.ensure(18);
+                    out.buf.put((byte) t.getDifficulty().ordinal());
+                    out.buf.put(t.isCompleted() ? COMPLETED : 0);
+                    out.buf.putLong(toEpoch(t.getDueDate()));
+                    out.buf.putLong(toEpoch(t.getLastAccessed()));
+                    Map<String, String> links = t.getLinks();
+                    out.putInt(links.size());
+                    for (Map.Entry<String, String> link : links.entrySet()) {
+                        out.putString(link.getKey());
+                        out.putString(link.getValue());
+                    }
+                }
+            }
+        }
+        out.drain();
+    }
+
+    private static long toEpoch(LocalDateTime dateTime) {
+        return dateTime == null ? NO_DATE : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Writer {
+        final FileChannel channel;
+        final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) drain();
+        }
+
+        void drain() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) channel.write(buf);
+            buf.clear();
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buf.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buf.putLong(value);
+        }
+
+        void putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            if (bytes.length <= buf.capacity()) {
+                ensure(bytes.length);
+                buf.put(bytes);
+            } else {
+                drain();
+                ByteBuffer big = ByteBuffer.wrap(bytes);
+                while (big.hasRemaining()) channel.write(big);
+            }
+        }
+    }
+
+    // --- Reading ---
+    /**
+     * Reads a snapshot from {@code buf} into {@code out} and returns its journal sequence. With
+     * {@code lazyDetails} descriptions and links are copied out undecoded and decoded on first access.
+     */
+    static long read(ByteBuffer buf, List<Category> out, boolean lazyDetails) throws IOException {
+        if (!matches(buf)) throw new IOException("Not a binary snapshot.");
+        buf.getInt();
+        short version = buf.getShort();
+        if (version != VERSION && version != VERSION_WITHOUT_IDS)
+            throw new IOException("Unsupported binary snapshot version: " + version);
+        boolean ids = version != VERSION_WITHOUT_IDS;
+        long sequence = buf.getLong();
+
+        Reader in = new Reader(buf);
+        int tableSize = buf.getInt();
+        // every entry takes at least its 4-byte length, which bounds an honest count
+        if (tableSize < 0 || tableSize > buf.remaining() / 4)
+            throw new IOException("Corrupt string table size: " + tableSize);
+        String[] table = new String[tableSize];
+        for (int i = 0; i < table.length; i++) table[i] = in.string();
+
+        Difficulty[] difficulties = Difficulty.values();
+        int categoryCount = buf.getInt();
+        for (int c = 0; c < categoryCount; c++) {
+            Category category = new Category(ref(table, buf.getInt()));
+            if (ids) category.restoreId(buf.getLong());
+            out.add(category);
+            int subjectCount = buf.getInt();
+            for (int s = 0; s < subjectCount; s++) {
+                Subject subject = new Subject(ref(table, buf.getInt()));
+                if (ids) subject.restoreId(buf.getLong());
+                category.addSubject(subject);
+                int taskCount = buf.getInt();
+                for (int t = 0; t < taskCount; t++) {
+                    long id = ids ? buf.getLong() : 0;
+                    String name = in.string();
+                    int descriptionAt = buf.position();
+                    String description = lazyDetails ? in.skip() : in.string();
+                    int descriptionEnd = buf.position();
+                    int ordinal = buf.get();
+                    byte flags = buf.get();
+                    long due = buf.getLong();
+                    long accessed = buf.getLong();
+
+                    Difficulty difficulty = ordinal >= 0 && ordinal < difficulties.length
+                            ? difficulties[ordinal] : Difficulty.EASY;
+                    Task task = new Task(name, description, difficulty, null);
+                    task.restoreId(id);
+                    task.restoreDueDate(due == NO_DATE ? null : LocalDateTime.ofEpochSecond(due, 0, ZoneOffset.UTC));
+                    task.setCompleted((flags & COMPLETED) != 0);
+                    task.setLastAccessed(LocalDateTime.ofEpochSecond(accessed, 0, ZoneOffset.UTC));
+                    int linksAt = buf.position();
+                    int links = buf.getInt();
+                    if (lazyDetails) {
+                        for (int l = 0; l < links * 2; l++) in.skip();
+                        if (links > 0 || descriptionEnd - descriptionAt > 4) {
+                            byte[] raw = new byte[descriptionEnd - descriptionAt + buf.position() - linksAt];
+                            buf.get(descriptionAt, raw, 0, descriptionEnd - descriptionAt);
+                            buf.get(linksAt, raw, descriptionEnd - descriptionAt, buf.position() - linksAt);
+                            task.restoreDetails(new BinaryDetails(raw));
+                        }
+                    } else {
+                        for (int l = 0; l < links; l++) {
+                            task.addLink(in.string(), in.string());
+                        }
+                    }
+                    subject.addTask(task);
+                }
+            }
+        }
+        return sequence;
+    }
+
+    private static String ref(String[] table, int index) throws IOException {
+        if (index < 0 || index >= table.length) throw new IOException("Corrupt string table reference: " + index);
+        return table[index];
+    }
+
+    private static final class Reader {
+        final ByteBuffer buf;
+        byte[] scratch = new byte[256];
+
+        Reader(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        String string() {
+            int len = length();
+            if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        String skip() {
+            int len = length();
+            buf.position(buf.position() + len);
+            return "";
+        }
+
+        private int length() {
+            int len = buf.getInt();
+            if (len < 0 || len > buf.remaining()) throw new IllegalArgumentException("Corrupt string length: " + len);
+            return len;
+        }
+    }
+
+    /** A length-prefixed description followed by the link block, both still encoded. */
+    private static final class BinaryDetails implements Task.Details {
+        private final byte[] raw;
+
+        BinaryDetails(byte[] raw) {
+            this.raw = raw;
+        }
+
+        @Override
+        public String description() {
+            return new Reader(ByteBuffer.wrap(raw)).string();
+        }
+
+        @Override
+        public void links(Map<String, String> into) {
+            ByteBuffer buf = ByteBuffer.wrap(raw);
+            Reader in = new Reader(buf);
+            in.skip();
+            int links = buf.getInt();
+            for (int l = 0; l < links; l++) {
+                into.put(in.string(), in.string());
+            }
+        }
+    }
+}
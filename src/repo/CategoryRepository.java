@@ -3,153 +3,519 @@ package repo;
 import domein.Category;
 import domein.Subject;
 import domein.Task;
-import domein.Difficulty;
 
 import java.io.*;
-import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 public class CategoryRepository {
 
     private static final String FILE_PATH = "Category.json";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String COMPACTING_SUFFIX = ".journal.compacting";
+    private static final String SHARDS_SUFFIX = ".shards";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String SEQUENCE_MARKER = "#Sequence:";
+    private static final int COMPACT_THRESHOLD = 1000;
     private static final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
+    private final File snapshotFile;
+    private final File compactingFile;
+    private final MutationJournal journal;
+    private final ShardStore shards;
+    private final ExecutorService compactor;
+    private final ScheduledExecutorService writer;
+
+    // Guards the journal files; always taken before the monitor on this.
+    private final Object ioLock = new Object();
+    private volatile SnapshotFormat format = SnapshotFormat.TEXT;
+    private volatile boolean sharded;
+    private volatile boolean lazyDetails;
+    private long snapshotSequence;
+    private int recordsSinceCompaction;
+    private boolean compacting;
+
+    private List<String> pending = new ArrayList<>();
+    private long sequence;
+    private long debounceNanos = -1;
+    private long maxStalenessNanos;
+    private boolean flushScheduled;
+    private long firstPendingAt;
+    private long lastRecordAt;
+
+    public CategoryRepository() {
+        this(FILE_PATH);
+    }
+
+    public CategoryRepository(String filePath) {
+        this.snapshotFile = new File(filePath);
+        this.compactingFile = new File(filePath + COMPACTING_SUFFIX);
+        this.journal = new MutationJournal(new File(filePath + JOURNAL_SUFFIX));
+        this.shards = new ShardStore(new File(filePath + SHARDS_SUFFIX).toPath());
+        this.compactor = Executors.newSingleThreadExecutor(daemon("kairos-journal-compactor"));
+        this.writer = Executors.newSingleThreadScheduledExecutor(daemon("kairos-write-behind"));
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // --- Format ---
+    public SnapshotFormat getSnapshotFormat() {
+        return format;
+    }
+
+    /** Selects the format of the next snapshot written; loading always detects the format by magic number. */
+    public void setSnapshotFormat(SnapshotFormat format) {
+        if (format == null) throw new IllegalArgumentException("Snapshot format cannot be null.");
+        this.format = format;
+    }
+
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    /**
+     * Stores each category in its own shard file so a save only rewrites the categories that changed.
+     * Takes effect at the next snapshot; loading picks up an existing shard manifest automatically.
+     */
+    public void setSharded(boolean sharded) {
+        this.sharded = sharded;
+    }
+
+    public boolean isLazyDetails() {
+        return lazyDetails;
+    }
+
+    /**
+     * Loads task descriptions and links undecoded and decodes each task's details on first access,
+     * for callers that mostly show names and counts. Takes effect at the next {@link #loadCategories()}.
+     */
+    public void setLazyDetails(boolean lazyDetails) {
+        this.lazyDetails = lazyDetails;
+    }
+
+    // --- Write-behind ---
+    /**
+     * Defers journal writes to a background thread. A burst of mutations is written once it has been
+     * quiet for {@code debounce}, and never later than {@code maxStaleness} after its first mutation.
+     * Mutations are only durable once their batch is written, so a crash can lose up to
+     * {@code maxStaleness} of them; call {@link #flush()} where that matters.
+     */
+    public synchronized void enableWriteBehind(Duration debounce, Duration maxStaleness) {
+        if (debounce.isNegative() || maxStaleness.compareTo(debounce) < 0)
+            throw new IllegalArgumentException("Max staleness must be at least the debounce delay.");
+        this.debounceNanos = debounce.toNanos();
+        this.maxStalenessNanos = maxStaleness.toNanos();
+    }
+
+    public boolean isWriteBehind() {
+        return debounceNanos >= 0;
+    }
+
+    /** Writes every pending mutation to the journal and forces it to disk before returning. */
+    public void flush() {
+        synchronized (ioLock) {
+            List<String> batch;
+            synchronized (this) {
+                batch = drainPending();
+            }
+            try {
+                appendToJournal(batch);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to " + journal.getFile(), e);
+            }
+        }
+    }
+
+    private void writeBehindTick() {
+        List<String> batch;
+        synchronized (ioLock) {
+            synchronized (this) {
+                long now = System.nanoTime();
+                long due = Math.min(lastRecordAt + debounceNanos, firstPendingAt + maxStalenessNanos);
+                if (due - now > 0) {
+                    writer.schedule(this::writeBehindTick, due - now, TimeUnit.NANOSECONDS);
+                    return;
+                }
+                flushScheduled = false;
+                batch = drainPending();
+            }
+            try {
+                appendToJournal(batch);
+            } catch (IOException e) {
+                System.err.println("Write-behind failed, retrying: " + e.getMessage());
+                synchronized (this) {
+                    if (!flushScheduled) {
+                        flushScheduled = true;
+                        firstPendingAt = lastRecordAt = System.nanoTime();
+                        writer.schedule(this::writeBehindTick, maxStalenessNanos, TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<String> drainPending() {
+        List<String> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    // --- Journal ---
+    public void record(Mutation mutation) {
+        recordAll(List.of(mutation));
+    }
+
+    /**
+     * Journals the mutations. Without write-behind they are forced to disk before this returns;
+     * with it they become durable at the next flush.
+     */
+    public void recordAll(List<Mutation> mutations) {
+        synchronized (this) {
+            for (Mutation m : mutations) {
+                pending.add(m.encode(++sequence));
+            }
+            if (isWriteBehind()) {
+                lastRecordAt = System.nanoTime();
+                if (!flushScheduled) {
+                    flushScheduled = true;
+                    firstPendingAt = lastRecordAt;
+                    writer.schedule(this::writeBehindTick, debounceNanos, TimeUnit.NANOSECONDS);
+                }
+                return;
+            }
+        }
+        flush();
+    }
+
+    private void appendToJournal(List<String> batch) throws IOException {
+        if (batch.isEmpty()) return;
+        try {
+            journal.append(batch);
+        } catch (IOException e) {
+            synchronized (this) {
+                batch.addAll(pending);
+                pending = batch;
+            }
+            throw e;
+        }
+        recordsSinceCompaction += batch.size();
+        if (recordsSinceCompaction >= COMPACT_THRESHOLD) compactInBackground();
+    }
+
+    private void compactInBackground() {
+        if (compacting) return;
+        try {
+            if (!compactingFile.exists()) journal.rotateTo(compactingFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        compacting = true;
+        recordsSinceCompaction = 0;
+        compactor.execute(this::compact);
+    }
+
+    private void compact() {
+        if (sharded) {
+            compactShards();
+            return;
+        }
+        try {
+            List<Category> base = new ArrayList<>();
+            long baseSequence = readSnapshot(base, false);
+            long last = replay(base, compactingFile, baseSequence);
+            Path temp = writeSnapshot(base, last);
+            synchronized (ioLock) {
+                if (last > snapshotSequence) {
+                    installSnapshot(temp);
+                    shards.delete();
+                    snapshotSequence = last;
+                } else {
+                    Files.deleteIfExists(temp);
+                }
+                Files.deleteIfExists(compactingFile.toPath());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            synchronized (ioLock) {
+                compacting = false;
+            }
+        }
+    }
+
+    // like compact(): shards are written outside the lock and only the manifest swap happens under it
+    private void compactShards() {
+        try {
+            List<Category> base = new ArrayList<>();
+            long baseSequence = readSnapshot(base, false);
+            long last = replay(base, compactingFile, baseSequence);
+            ShardStore.Staged staged = shards.stage(base, format);
+            synchronized (ioLock) {
+                if (last > snapshotSequence) {
+                    shards.commit(staged, last);
+                    Files.deleteIfExists(snapshotFile.toPath());
+                    snapshotSequence = last;
+                } else {
+                    shards.discard(staged);
+                }
+                Files.deleteIfExists(compactingFile.toPath());
+            }
+        } catch (IOException e) {
+            // a save meanwhile may have replaced the shards being read; it also covered these records
+            e.printStackTrace();
+        } finally {
+            synchronized (ioLock) {
+                compacting = false;
+            }
+        }
+    }
+
+    // --- Snapshot ---
     public void saveCategories(List<Category> categories) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_PATH))) {
+        synchronized (ioLock) {
+            long snapshotSeq;
+            synchronized (this) {
+                drainPending();
+                snapshotSeq = sequence;
+            }
+            try {
+                if (sharded) {
+                    shards.save(categories, snapshotSeq, format);
+                    Files.deleteIfExists(snapshotFile.toPath());
+                } else {
+                    installSnapshot(writeSnapshot(categories, snapshotSeq));
+                    shards.delete();
+                }
+                for (Category c : categories) c.clearDirty();
+                snapshotSequence = snapshotSeq;
+                journal.truncate();
+                Files.deleteIfExists(compactingFile.toPath());
+                recordsSinceCompaction = 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not save " + snapshotFile, e);
+            }
+        }
+    }
+
+    /** Writes the snapshot to a temp file next to the real one and forces it to disk. */
+    private Path writeSnapshot(List<Category> categories, long snapshotSeq) throws IOException {
+        Path temp = Files.createTempFile(directory(), snapshotFile.getName() + ".", TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            writeSnapshot(channel, categories, snapshotSeq, format);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }
+
+    static void writeSnapshot(FileChannel channel, List<Category> categories, long snapshotSeq,
+                              SnapshotFormat format) throws IOException {
+        if (format == SnapshotFormat.BINARY) {
+            BinarySnapshot.write(categories, snapshotSeq, channel);
+        } else {
+            BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, Charset.defaultCharset()));
+            writer.write(SEQUENCE_MARKER + snapshotSeq);
+            writer.newLine();
             for (Category category : categories) {
                 writer.write("#Category:" + escapeSimple(category.getName()));
                 writer.newLine();
+                writer.write("#CategoryId:" + category.getId());
+                writer.newLine();
 
                 for (Subject subject : category.getSubjects()) {
                     writer.write("##Subject:" + escapeSimple(subject.getName()));
                     writer.newLine();
+                    writer.write("##SubjectId:" + subject.getId());
+                    writer.newLine();
 
                     for (Task task : subject.getTasks()) {
-                        String dueDateString = (task.getDueDate() != null)
-                                ? task.getDueDate().format(formatter)
-                                : "";
-
-                        String descEncoded = URLEncoder.encode(task.getDescription(), StandardCharsets.UTF_8);
-
-                        StringBuilder linksString = new StringBuilder();
-                        task.getLinks().forEach((name, url) -> {
-                            String k = URLEncoder.encode(name, StandardCharsets.UTF_8);
-                            String v = URLEncoder.encode(url, StandardCharsets.UTF_8);
-                            linksString.append(k).append("->").append(v).append(",");
-                        });
-                        if (linksString.length() > 0) linksString.setLength(linksString.length() - 1);
-
-                        writer.write(String.format("###Task:%s|%s|%s|%s|%b|%s|%s|%s|%s",
-                                escapeSimple(task.getName()),
-                                descEncoded,
-                                task.getDifficulty(),
-                                dueDateString,
-                                task.isCompleted(),
-                                task.getLastAccessed().format(formatter),
-                                linksString.toString(),
-                                escapeSimple(task.getOriginalCategoryName()),
-                                escapeSimple(task.getOriginalSubjectName())
-                        ));
+                        writer.write("###Task:" + formatTask(task));
                         writer.newLine();
                     }
                 }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            writer.flush();
+        }
+    }
+
+    private void installSnapshot(Path temp) throws IOException {
+        try {
+            Files.move(temp, snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (FileChannel dir = FileChannel.open(directory(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ignored) {
+            // Not every platform can sync a directory; the rename itself is still atomic.
         }
     }
 
+    /** Removes temp snapshots left behind by a crash; the last installed snapshot is always intact. */
+    private void discardTornSnapshots() throws IOException {
+        String prefix = snapshotFile.getName() + ".";
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory(), prefix + "*" + TEMP_SUFFIX)) {
+            for (Path torn : stream) {
+                System.err.println("Discarding incomplete snapshot: " + torn.getFileName());
+                Files.deleteIfExists(torn);
+            }
+        }
+    }
+
+    private Path directory() {
+        return snapshotFile.getAbsoluteFile().getParentFile().toPath();
+    }
+
     public List<Category> loadCategories() {
         List<Category> loaded = new ArrayList<>();
-        File file = new File(FILE_PATH);
-        if (!file.exists()) return loaded;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            Category currentCategory = null;
-            Subject currentSubject = null;
-            String line;
-
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.startsWith("#Category:")) {
-                    String name = unescapeSimple(line.substring(10));
-                    currentCategory = new Category(name);
-                    loaded.add(currentCategory);
-                } else if (line.startsWith("##Subject:")) {
-                    String name = unescapeSimple(line.substring(10));
-                    if (currentCategory != null) {
-                        currentSubject = new Subject(name);
-                        currentCategory.addSubject(currentSubject);
-                    }
-                } else if (line.startsWith("###Task:")) {
-                    if (currentSubject != null) {
-                        String data = line.substring(8);
-                        String[] parts = data.split("\\|", -1);
-                        if (parts.length >= 6) {
-                            String taskName = unescapeSimple(parts[0]);
-
-                            String description;
-                            try {
-                                description = parts[1].isEmpty() ? "" :
-                                        URLDecoder.decode(parts[1], StandardCharsets.UTF_8);
-                            } catch (IllegalArgumentException ex) {
-                                description = parts[1].replace("/", "|");
-                            }
-
-                            Difficulty difficulty;
-                            try {
-                                difficulty = Difficulty.valueOf(parts[2]);
-                            } catch (Exception ex) {
-                                difficulty = Difficulty.EASY;
-                            }
-
-                            LocalDateTime dueDate = parts[3].isBlank() ? null : LocalDateTime.parse(parts[3], formatter);
-                            boolean completed = Boolean.parseBoolean(parts[4]);
-                            LocalDateTime lastAccessed = LocalDateTime.parse(parts[5], formatter);
-
-                            Task task = new Task(taskName, description, difficulty, dueDate);
-                            task.setCompleted(completed);
-                            task.setLastAccessed(lastAccessed);
-
-                            if (parts.length >= 7 && !parts[6].isBlank()) {
-                                String linksPart = parts[6];
-                                String[] linkPairs = linksPart.split(",", -1);
-                                for (String pair : linkPairs) {
-                                    if (pair.isBlank()) continue;
-                                    String[] kv = pair.split("->", 2);
-                                    if (kv.length == 2) {
-                                        try {
-                                            task.addLink(URLDecoder.decode(kv[0], StandardCharsets.UTF_8),
-                                                    URLDecoder.decode(kv[1], StandardCharsets.UTF_8));
-                                        } catch (IllegalArgumentException ignored) {}
-                                    }
-                                }
-                            }
-                            task.setOriginalCategoryName(currentCategory != null ? currentCategory.getName() : null);
-                            task.setOriginalSubjectName(currentSubject != null ? currentSubject.getName() : null);
-                            currentSubject.addTask(task);
-                        }
-                    }
+        synchronized (ioLock) {
+            try {
+                discardTornSnapshots();
+                journal.repairTail();
+                if (shards.exists()) {
+                    sharded = true;
+                    shards.discardOrphans();
+                } else if (snapshotFile.exists()) {
+                    format = formatOf(snapshotFile.toPath());
+                }
+                snapshotSequence = readSnapshot(loaded, lazyDetails);
+                long last = replay(loaded, compactingFile, snapshotSequence);
+                last = replay(loaded, journal.getFile(), last);
+                synchronized (this) {
+                    sequence = Math.max(last, snapshotSequence);
+                    recordsSinceCompaction = (int) Math.min(Integer.MAX_VALUE, sequence - snapshotSequence);
                 }
+            } catch (IOException e) {
+                e.printStackTrace();
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            if (recordsSinceCompaction >= COMPACT_THRESHOLD || compactingFile.exists()) compactInBackground();
         }
         return loaded;
     }
 
-    private String escapeSimple(String s) {
-        if (s == null) return "";
-        return s.replace("\n", " ").replace("\r", " ").trim();
+    /** Loads the current snapshot with every category marked clean. */
+    private long readSnapshot(List<Category> loaded, boolean lazy) throws IOException {
+        long snapshotSeq = 0;
+        if (shards.exists()) {
+            snapshotSeq = shards.load(loaded, lazy);
+        } else if (snapshotFile.exists()) {
+            snapshotSeq = readSnapshot(snapshotFile.toPath(), loaded, lazy);
+        }
+        for (Category c : loaded) c.clearDirty();
+        return snapshotSeq;
+    }
+
+    /** Loads a text or binary snapshot, telling them apart by the binary magic number. */
+    static long readSnapshot(Path file, List<Category> loaded, boolean lazyDetails) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Snapshot too large to map: " + file);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (BinarySnapshot.matches(mapped)) {
+                try {
+                    return BinarySnapshot.read(mapped, loaded, lazyDetails);
+                } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                         | NegativeArraySizeException | DateTimeException e) {
+                    throw new IOException("Corrupt binary snapshot: " + file, e);
+                }
+            }
+            return SnapshotScanner.scanParallel(mapped, (int) size, Charset.defaultCharset(), lazyDetails, loaded);
+        }
     }
 
-    private String unescapeSimple(String s) {
+    static SnapshotFormat formatOf(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            channel.read(head);
+            head.flip();
+            return BinarySnapshot.matches(head) ? SnapshotFormat.BINARY : SnapshotFormat.TEXT;
+        }
+    }
+
+    /** Applies the records in {@code file} newer than {@code after}; returns the last sequence applied. */
+    private long replay(List<Category> categories, File file, long after) throws IOException {
+        long last = after;
+        for (String line : MutationJournal.readRecords(file)) {
+            long seq = Mutation.sequenceOf(line);
+            if (seq <= last) continue;
+            try {
+                Mutation.decode(line).applyTo(categories);
+            } catch (RuntimeException ex) {
+                System.err.println("Skipping unreadable journal record: " + line);
+                continue;
+            }
+            last = seq;
+        }
+        return last;
+    }
+
+    // --- Line format ---
+    static String formatTask(Task task) {
+        String dueDateString = (task.getDueDate() != null)
+                ? task.getDueDate().format(formatter)
+                : "";
+
+        String descEncoded = URLEncoder.encode(task.getDescription(), StandardCharsets.UTF_8);
+
+        StringBuilder linksString = new StringBuilder();
+        task.getLinks().forEach((name, url) -> {
+            String k = URLEncoder.encode(name, StandardCharsets.UTF_8);
+            String v = URLEncoder.encode(url, StandardCharsets.UTF_8);
+            linksString.append(k).append("->").append(v).append(",");
+        });
+        if (linksString.length() > 0) linksString.setLength(linksString.length() - 1);
+
+        // the two parent-name columns stay empty: the enclosing #Category/##Subject lines already name them
+        return String.format("%s|%s|%s|%s|%b|%s|%s|||%d",
+                escapeSimple(task.getName()),
+                descEncoded,
+                task.getDifficulty(),
+                dueDateString,
+                task.isCompleted(),
+                task.getLastAccessed().format(formatter),
+                linksString.toString(),
+                task.getId()
+        );
+    }
+
+    static Task parseTask(String data) {
+        byte[] bytes = data.getBytes(Charset.defaultCharset());
+        return new SnapshotScanner(Charset.defaultCharset()).parseTask(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private static String escapeSimple(String s) {
         if (s == null) return "";
-        return s;
+        return s.replace("\n", " ").replace("\r", " ").trim();
     }
 }
@@ -0,0 +1,184 @@
+package repo;
+
+import domein.Category;
+import domein.Subject;
+import domein.Task;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Mutation {
+
+    public enum Type {
+        ADD_CATEGORY, REMOVE_CATEGORY, RENAME_CATEGORY,
+        ADD_SUBJECT, REMOVE_SUBJECT, RENAME_SUBJECT,
+        PUT_TASK, REMOVE_TASK
+    }
+
+    private final Type type;
+    private final String[] args;
+
+    private Mutation(Type type, String... args) {
+        this.type = type;
+        this.args = args;
+    }
+
+    // --- Factories ---
+    public static Mutation addCategory(String name, long id) {
+        return new Mutation(Type.ADD_CATEGORY, name, Long.toString(id));
+    }
+
+    public static Mutation removeCategory(String name) {
+        return new Mutation(Type.REMOVE_CATEGORY, name);
+    }
+
+    public static Mutation renameCategory(String oldName, String newName) {
+        return new Mutation(Type.RENAME_CATEGORY, oldName, newName);
+    }
+
+    public static Mutation addSubject(String categoryName, String subjectName, long id) {
+        return new Mutation(Type.ADD_SUBJECT, categoryName, subjectName, Long.toString(id));
+    }
+
+    public static Mutation removeSubject(String categoryName, String subjectName) {
+        return new Mutation(Type.REMOVE_SUBJECT, categoryName, subjectName);
+    }
+
+    public static Mutation renameSubject(String categoryName, String oldName, String newName) {
+        return new Mutation(Type.RENAME_SUBJECT, categoryName, oldName, newName);
+    }
+
+    /** Adds the task, or replaces the task currently named {@code oldName} when it is not null. */
+    public static Mutation putTask(String categoryName, String subjectName, String oldName, Task task) {
+        return new Mutation(Type.PUT_TASK, categoryName, subjectName, oldName == null ? "" : oldName,
+                CategoryRepository.formatTask(task));
+    }
+
+    public static Mutation removeTask(String categoryName, String subjectName, String taskName) {
+        return new Mutation(Type.REMOVE_TASK, categoryName, subjectName, taskName);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    // --- Encoding ---
+    String encode(long sequence) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(sequence).append('|').append(type);
+        for (String arg : args) {
+            sb.append('|').append(URLEncoder.encode(arg, StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    static long sequenceOf(String line) {
+        int bar = line.indexOf('|');
+        if (bar <= 0) return -1;
+        try {
+            return Long.parseLong(line, 0, bar, 10);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    static Mutation decode(String line) {
+        String[] parts = line.split("\\|", -1);
+        if (parts.length < 2) throw new IllegalArgumentException("Malformed journal record: " + line);
+        Type type = Type.valueOf(parts[1]);
+        String[] args = new String[parts.length - 2];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = URLDecoder.decode(parts[i + 2], StandardCharsets.UTF_8);
+        }
+        return new Mutation(type, args);
+    }
+
+    // --- Replay ---
+    void applyTo(List<Category> categories) {
+        switch (type) {
+            case ADD_CATEGORY -> {
+                if (findCategory(categories, args[0]) == null) {
+                    Category cat = new Category(args[0]);
+                    cat.restoreId(idArg(1));
+                    categories.add(cat);
+                }
+            }
+            case REMOVE_CATEGORY -> categories.removeIf(c -> c.getName().equals(args[0]));
+            case RENAME_CATEGORY -> {
+                Category cat = findCategory(categories, args[0]);
+                if (cat != null) cat.setName(args[1]);
+            }
+            case ADD_SUBJECT -> {
+                Category cat = findCategory(categories, args[0]);
+                if (cat != null && findSubject(cat, args[1]) == null) {
+                    Subject subj = new Subject(args[1]);
+                    subj.restoreId(idArg(2));
+                    cat.addSubject(subj);
+                }
+            }
+            case REMOVE_SUBJECT -> {
+                Category cat = findCategory(categories, args[0]);
+                Subject subj = cat == null ? null : findSubject(cat, args[1]);
+                if (subj != null) cat.removeSubject(subj);
+            }
+            case RENAME_SUBJECT -> {
+                Category cat = findCategory(categories, args[0]);
+                Subject subj = cat == null ? null : findSubject(cat, args[1]);
+                if (subj != null) subj.setName(args[2]);
+            }
+            case PUT_TASK -> {
+                Category cat = findCategory(categories, args[0]);
+                Subject subj = cat == null ? null : findSubject(cat, args[1]);
+                if (subj == null) return;
+                Task task = CategoryRepository.parseTask(args[3]);
+                if (task == null) return;
+                Task target = findTask(subj, args[2].isEmpty() ? task.getName() : args[2]);
+                if (target == null) {
+                    subj.addTask(task);
+                    return;
+                }
+                target.setName(task.getName());
+                target.setDescription(task.getDescription());
+                target.setDifficulty(task.getDifficulty());
+                target.setCompleted(task.isCompleted());
+                target.setLastAccessed(task.getLastAccessed());
+                for (String link : new ArrayList<>(target.getLinks().keySet())) target.removeLink(link);
+                task.getLinks().forEach(target::addLink);
+                target.restoreDueDate(task.getDueDate());
+            }
+            case REMOVE_TASK -> {
+                Category cat = findCategory(categories, args[0]);
+                Subject subj = cat == null ? null : findSubject(cat, args[1]);
+                if (subj != null) subj.removeTaskByName(args[2]);
+            }
+        }
+    }
+
+    // records written before ids existed lack the argument; the manager then assigns a fresh id
+    private long idArg(int index) {
+        return index < args.length && !args[index].isEmpty() ? Long.parseLong(args[index]) : 0;
+    }
+
+    private static Category findCategory(List<Category> categories, String name) {
+        for (Category c : categories) {
+            if (c.getName().equals(name)) return c;
+        }
+        return null;
+    }
+
+    private static Subject findSubject(Category category, String name) {
+        return category.getSubject(name);
+    }
+
+    private static Task findTask(Subject subject, String name) {
+        return subject.getTask(name);
+    }
+
+    @Override
+    public String toString() {
+        return "Mutation[" + type + ", " + String.join(", ", args) + "]";
+    }
+}
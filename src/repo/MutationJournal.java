@@ -0,0 +1,118 @@
+package repo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+class MutationJournal {
+
+    private final File file;
+    private FileChannel channel;
+
+    MutationJournal(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Appends the records and forces them to the device before returning, so a record that made it
+     * through here survives a power loss, not just a process crash.
+     */
+    void append(List<String> records) throws IOException {
+        if (records.isEmpty()) return;
+        StringBuilder sb = new StringBuilder(records.size() * 96);
+        for (String record : records) {
+            sb.append(record).append('\n');
+        }
+        ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        FileChannel ch = channel();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        ch.force(false);
+    }
+
+    /** Closes the journal and moves it aside as {@code target}; the next append starts a fresh file. */
+    void rotateTo(File target) throws IOException {
+        close();
+        if (file.exists()) {
+            Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    void truncate() throws IOException {
+        close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    /** Cuts off a record torn by a crash mid-append so the next append starts on a clean line. */
+    void repairTail() throws IOException {
+        if (!file.exists()) return;
+        close();
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            ByteBuffer one = ByteBuffer.allocate(1);
+            long end = size;
+            while (end > 0) {
+                one.clear();
+                ch.read(one, end - 1);
+                if (one.get(0) == '\n') break;
+                end--;
+            }
+            if (end < size) ch.truncate(end);
+        }
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            boolean created = !file.exists();
+            channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (created) forceDirectory();
+        }
+        return channel;
+    }
+
+    // a fresh journal's directory entry must reach the disk too, or the forced records go with it
+    private void forceDirectory() {
+        File dir = file.getAbsoluteFile().getParentFile();
+        try (FileChannel ch = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException ignored) {
+            // Not every platform can sync a directory.
+        }
+    }
+
+    static List<String> readRecords(File file) throws IOException {
+        List<String> records = new ArrayList<>();
+        if (!file.exists()) return records;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) records.add(line);
+            }
+        }
+        return records;
+    }
+}
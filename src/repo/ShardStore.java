@@ -0,0 +1,210 @@
+package repo;
+
+import domein.Category;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores every category in its own shard file plus a manifest listing the shards in order, keyed by
+ * category id so categories sharing a name keep separate shards. Changed
+ * categories are written to fresh shard files and the manifest is swapped atomically, so a crash
+ * never leaves the manifest pointing at a half-written shard.
+ */
+final class ShardStore {
+
+    private static final String MANIFEST = "manifest";
+    private static final String SHARD_PREFIX = "shard-";
+    private static final String SHARD_SUFFIX = ".dat";
+    private static final String SEQUENCE_MARKER = "#Sequence:";
+    // manifests written before ids existed keyed shards by category name; their shards are loaded but never reused
+    private static final String SHARD_MARKER = "#Shard:";
+    private static final String SHARD_ID_MARKER = "#ShardId:";
+
+    private final Path dir;
+
+    ShardStore(Path dir) {
+        this.dir = dir;
+    }
+
+    boolean exists() {
+        return Files.exists(dir.resolve(MANIFEST));
+    }
+
+    long load(List<Category> out, boolean lazyDetails) throws IOException {
+        Manifest manifest = readManifest();
+        for (Entry entry : manifest.entries) {
+            CategoryRepository.readSnapshot(dir.resolve(entry.file()), out, lazyDetails);
+        }
+        return manifest.sequence;
+    }
+
+    /** Rewrites the shards of dirty categories and commits a new manifest; clean shards are reused. */
+    void save(List<Category> categories, long sequence, SnapshotFormat format) throws IOException {
+        commit(stage(categories, format), sequence);
+    }
+
+    /**
+     * Writes fresh shards for the categories that need one, keyed by category id, without touching the
+     * manifest. Nothing is visible to a load until {@link #commit}; {@link #discard} drops the new files.
+     */
+    Staged stage(List<Category> categories, SnapshotFormat format) throws IOException {
+        Files.createDirectories(dir);
+        Map<Long, String> previous = readManifest().byId();
+        Staged staged = new Staged();
+        try {
+            for (Category category : categories) {
+                String shard = category.getId() > 0 ? previous.get(category.getId()) : null;
+                if (shard == null || category.isDirty()) {
+                    shard = writeShard(category, format);
+                    staged.written.add(shard);
+                }
+                staged.entries.add(new Entry(category.getId(), shard));
+            }
+        } catch (IOException | RuntimeException e) {
+            discard(staged);
+            throw e;
+        }
+        return staged;
+    }
+
+    /** Swaps in the staged manifest and deletes the shards only the replaced manifest referred to. */
+    void commit(Staged staged, long sequence) throws IOException {
+        Manifest previous = readManifest();
+        writeManifest(staged.entries, sequence);
+
+        Set<String> live = new HashSet<>();
+        for (Entry entry : staged.entries) live.add(entry.file());
+        for (Entry old : previous.entries) {
+            if (!live.contains(old.file())) Files.deleteIfExists(dir.resolve(old.file()));
+        }
+    }
+
+    void discard(Staged staged) throws IOException {
+        for (String shard : staged.written) Files.deleteIfExists(dir.resolve(shard));
+    }
+
+    /** Deletes shard files no manifest refers to, left behind by a crash before the manifest swap. */
+    void discardOrphans() throws IOException {
+        if (!Files.isDirectory(dir)) return;
+        Set<String> live = new HashSet<>();
+        for (Entry entry : readManifest().entries) live.add(entry.file());
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SHARD_PREFIX + "*")) {
+            for (Path file : stream) {
+                if (!live.contains(file.getFileName().toString())) Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir.resolve(MANIFEST + ".tmp"));
+    }
+
+    private String writeShard(Category category, SnapshotFormat format) throws IOException {
+        Path shard = Files.createTempFile(dir, SHARD_PREFIX, SHARD_SUFFIX);
+        try (FileChannel channel = FileChannel.open(shard, StandardOpenOption.WRITE)) {
+            CategoryRepository.writeSnapshot(channel, List.of(category), 0, format);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(shard);
+            throw e;
+        }
+        return shard.getFileName().toString();
+    }
+
+    private void writeManifest(List<Entry> entries, long sequence) throws IOException {
+        Path temp = dir.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            writer.write(SEQUENCE_MARKER + sequence);
+            writer.newLine();
+            for (Entry entry : entries) {
+                writer.write(SHARD_ID_MARKER + entry.file() + "|" + entry.id());
+                writer.newLine();
+            }
+            writer.flush();
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, dir.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, dir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Manifest readManifest() throws IOException {
+        Manifest manifest = new Manifest();
+        Path file = dir.resolve(MANIFEST);
+        if (!Files.exists(file)) return manifest;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(SEQUENCE_MARKER)) {
+                    manifest.sequence = Long.parseLong(line.substring(SEQUENCE_MARKER.length()).trim());
+                } else if (line.startsWith(SHARD_ID_MARKER)) {
+                    int bar = line.indexOf('|');
+                    if (bar < 0) continue;
+                    long id;
+                    try {
+                        id = Long.parseLong(line.substring(bar + 1).trim());
+                    } catch (NumberFormatException e) {
+                        id = 0;
+                    }
+                    manifest.entries.add(new Entry(id, line.substring(SHARD_ID_MARKER.length(), bar)));
+                } else if (line.startsWith(SHARD_MARKER)) {
+                    int bar = line.indexOf('|');
+                    if (bar < 0) continue;
+                    manifest.entries.add(new Entry(0, line.substring(SHARD_MARKER.length(), bar)));
+                }
+            }
+        }
+        return manifest;
+    }
+
+    /** One shard in load order; id 0 marks a category that had no id yet, whose shard is never reused. */
+    private record Entry(long id, String file) {
+    }
+
+    private static final class Manifest {
+        long sequence;
+        final List<Entry> entries = new ArrayList<>();
+
+        Map<Long, String> byId() {
+            Map<Long, String> shards = new HashMap<>();
+            for (Entry entry : entries) {
+                if (entry.id() > 0) shards.put(entry.id(), entry.file());
+            }
+            return shards;
+        }
+    }
+
+    /** Shards written for a save that has not committed its manifest yet. */
+    static final class Staged {
+        private final List<Entry> entries = new ArrayList<>();
+        private final List<String> written = new ArrayList<>();
+    }
+
+    /** Removes the manifest and every shard, used when switching back to a single snapshot file. */
+    void delete() throws IOException {
+        if (!Files.isDirectory(dir)) return;
+        Files.deleteIfExists(dir.resolve(MANIFEST));
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SHARD_PREFIX + "*")) {
+            for (Path file : stream) Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(dir);
+    }
+}
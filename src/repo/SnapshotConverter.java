@@ -0,0 +1,56 @@
+package repo;
+
+import domein.Category;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Converts a snapshot between the text and binary formats.
+ * Usage: {@code SnapshotConverter <input> <output> <text|binary>}
+ */
+public class SnapshotConverter {
+
+    public static void convert(Path input, Path output, SnapshotFormat target) throws IOException {
+        List<Category> categories = new ArrayList<>();
+        long sequence = CategoryRepository.readSnapshot(input, categories, false);
+
+        Path dir = output.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, output.getFileName() + ".", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            CategoryRepository.writeSnapshot(channel, categories, sequence, target);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: SnapshotConverter <input> <output> <text|binary>");
+            return;
+        }
+        SnapshotFormat target;
+        try {
+            target = SnapshotFormat.valueOf(args[2].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown format: " + args[2]);
+            return;
+        }
+        try {
+            convert(Path.of(args[0]), Path.of(args[1]), target);
+            System.out.println("Converted " + args[0] + " to " + target + ": " + args[1]);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Conversion failed: " + e.getMessage());
+        }
+    }
+}
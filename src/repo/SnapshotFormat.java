@@ -0,0 +1,8 @@
+package repo;
+
+public enum SnapshotFormat {
+    /** The original line-based Category.json layout. */
+    TEXT,
+    /** Compact versioned layout written by {@link BinarySnapshot}. */
+    BINARY
+}
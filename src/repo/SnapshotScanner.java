@@ -0,0 +1,431 @@
+package repo;
+
+import domein.Category;
+import domein.Difficulty;
+import domein.Subject;
+import domein.Task;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+
+/**
+ * Parses the text snapshot format straight from a (memory-mapped) byte buffer. Fields are located by
+ * scanning for markers and '|' delimiters; Strings are only created for the values a Task keeps.
+ */
+final class SnapshotScanner {
+
+    private static final byte[] SEQUENCE = "#Sequence:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CATEGORY = "#Category:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CATEGORY_ID = "#CategoryId:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUBJECT = "##Subject:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUBJECT_ID = "##SubjectId:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TASK = "###Task:".getBytes(StandardCharsets.US_ASCII);
+    private static final int PARALLEL_THRESHOLD = 4 * 1024 * 1024;
+    private static final byte[][] DIFFICULTIES = new byte[Difficulty.values().length][];
+
+    static {
+        for (Difficulty d : Difficulty.values()) {
+            DIFFICULTIES[d.ordinal()] = d.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final Charset charset;
+    private final boolean lazyDetails;
+    private final int[] bars = new int[9];
+    private byte[] scratch = new byte[256];
+    private ByteBuffer buf;
+    private long sequence;
+
+    SnapshotScanner(Charset charset) {
+        this(charset, false);
+    }
+
+    /** With {@code lazyDetails} tasks keep their description and links as raw bytes until first read. */
+    SnapshotScanner(Charset charset, boolean lazyDetails) {
+        this.charset = charset;
+        this.lazyDetails = lazyDetails;
+    }
+
+    void scan(ByteBuffer source, int from, int to, List<Category> out) {
+        this.buf = source;
+        Category currentCategory = null;
+        Subject currentSubject = null;
+        int pos = from;
+        while (pos < to) {
+            int eol = indexOf((byte) '\n', pos, to);
+            int end = eol < 0 ? to : eol;
+            int start = skipBlank(pos, end);
+            int stop = trimEnd(start, end);
+
+            if (startsWith(start, stop, TASK)) {
+                if (currentSubject != null) {
+                    Task task = parseTask(start + TASK.length, stop);
+                    if (task != null) currentSubject.addTask(task);
+                }
+            } else if (startsWith(start, stop, SUBJECT_ID)) {
+                long id = parseLong(start + SUBJECT_ID.length, stop);
+                if (currentSubject != null && id > 0) currentSubject.restoreId(id);
+            } else if (startsWith(start, stop, CATEGORY_ID)) {
+                long id = parseLong(start + CATEGORY_ID.length, stop);
+                if (currentCategory != null && id > 0) currentCategory.restoreId(id);
+            } else if (startsWith(start, stop, SUBJECT)) {
+                if (currentCategory != null) {
+                    currentSubject = new Subject(string(start + SUBJECT.length, stop));
+                    currentCategory.addSubject(currentSubject);
+                }
+            } else if (startsWith(start, stop, CATEGORY)) {
+                currentCategory = new Category(string(start + CATEGORY.length, stop));
+                currentSubject = null;
+                out.add(currentCategory);
+            } else if (startsWith(start, stop, SEQUENCE)) {
+                long seq = parseLong(start + SEQUENCE.length, stop);
+                if (seq >= 0) sequence = seq;
+            }
+            pos = end + 1;
+        }
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    // --- Parallel loading ---
+    /**
+     * Parses a large snapshot on the common ForkJoinPool. A single pre-scan finds the "#Category:" line
+     * starts; runs of whole categories are parsed independently and stitched back in file order.
+     */
+    static long scanParallel(ByteBuffer source, int size, Charset charset, boolean lazyDetails, List<Category> out) {
+        int[] starts = size < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2
+                ? new int[0] : categoryStarts(source, size);
+        if (starts.length < 2) {
+            SnapshotScanner scanner = new SnapshotScanner(charset, lazyDetails);
+            scanner.scan(source, 0, size, out);
+            return scanner.getSequence();
+        }
+        SnapshotScanner header = new SnapshotScanner(charset, lazyDetails);
+        header.scan(source, 0, starts[0], out);
+        int chunk = Math.max(PARALLEL_THRESHOLD / 4, size / (ForkJoinPool.getCommonPoolParallelism() * 4 + 1));
+        out.addAll(ForkJoinPool.commonPool().invoke(new BlockTask(source, starts, 0, starts.length, size, chunk, charset, lazyDetails)));
+        return header.getSequence();
+    }
+
+    private static int[] categoryStarts(ByteBuffer source, int size) {
+        int[] starts = new int[64];
+        int count = 0;
+        int pos = 0;
+        while (pos < size) {
+            if (source.get(pos) == '#' && pos + CATEGORY.length <= size && source.get(pos + 1) == 'C') {
+                boolean match = true;
+                for (int i = 2; i < CATEGORY.length && match; i++) {
+                    match = source.get(pos + i) == CATEGORY[i];
+                }
+                if (match) {
+                    if (count == starts.length) starts = Arrays.copyOf(starts, count * 2);
+                    starts[count++] = pos;
+                }
+            }
+            while (pos < size && source.get(pos) != '\n') pos++;
+            pos++;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    private static final class BlockTask extends RecursiveTask<List<Category>> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer source;
+        private final int[] starts;
+        private final int lo;
+        private final int hi;
+        private final int size;
+        private final int chunk;
+        private final Charset charset;
+        private final boolean lazyDetails;
+
+        BlockTask(ByteBuffer source, int[] starts, int lo, int hi, int size, int chunk, Charset charset,
+                  boolean lazyDetails) {
+            this.source = source;
+            this.starts = starts;
+            this.lo = lo;
+            this.hi = hi;
+            this.size = size;
+            this.chunk = chunk;
+            this.charset = charset;
+            this.lazyDetails = lazyDetails;
+        }
+
+        private int end(int index) {
+            return index < starts.length ? starts[index] : size;
+        }
+
+        @Override
+        protected List<Category> compute() {
+            if (hi - lo == 1 || end(hi) - starts[lo] <= chunk) {
+                List<Category> parsed = new ArrayList<>(hi - lo);
+                new SnapshotScanner(charset, lazyDetails).scan(source, starts[lo], end(hi), parsed);
+                return parsed;
+            }
+            int mid = (lo + hi) >>> 1;
+            BlockTask right = new BlockTask(source, starts, mid, hi, size, chunk, charset, lazyDetails);
+            right.fork();
+            List<Category> left = new BlockTask(source, starts, lo, mid, size, chunk, charset, lazyDetails).compute();
+            left.addAll(right.join());
+            return left;
+        }
+    }
+
+    /** Parses the part of a task line after the "###Task:" marker. */
+    Task parseTask(ByteBuffer source, int from, int to) {
+        this.buf = source;
+        return parseTask(from, to);
+    }
+
+    private Task parseTask(int from, int to) {
+        int fields = 0;
+        for (int i = from; i < to && fields < bars.length; i++) {
+            if (buf.get(i) == '|') bars[fields++] = i;
+        }
+        if (fields < 5) return null;
+        int descEnd = bars[1];
+        int diffEnd = bars[2];
+        int dueEnd = bars[3];
+        int completedEnd = bars[4];
+        int accessedEnd = fields > 5 ? bars[5] : to;
+        int linksEnd = fields > 6 ? bars[6] : to;
+        // the id column follows the two parent-name columns, which are no longer read; older snapshots end before it
+        long id = fields > 8 ? parseLong(bars[8] + 1, to) : -1;
+
+        String taskName = string(from, bars[0]);
+        boolean hasLinks = fields > 5 && !isBlank(accessedEnd + 1, linksEnd);
+        boolean deferred = lazyDetails && (hasLinks || descEnd - bars[0] > 1);
+        String description = deferred ? "" : description(bars[0] + 1, descEnd);
+
+        Difficulty difficulty = Difficulty.EASY;
+        for (Difficulty d : Difficulty.values()) {
+            if (equalsBytes(bars[1] + 1, diffEnd, DIFFICULTIES[d.ordinal()])) {
+                difficulty = d;
+                break;
+            }
+        }
+
+        LocalDateTime dueDate = isBlank(bars[2] + 1, dueEnd) ? null : parseDateTime(bars[2] + 1, dueEnd);
+        boolean completed = equalsIgnoreCaseTrue(bars[3] + 1, completedEnd);
+        LocalDateTime lastAccessed = parseDateTime(bars[4] + 1, accessedEnd);
+
+        Task task = new Task(taskName, description, difficulty, null);
+        if (id > 0) task.restoreId(id);
+        task.restoreDueDate(dueDate);
+        task.setCompleted(completed);
+        task.setLastAccessed(lastAccessed);
+
+        if (deferred) {
+            byte[] raw = new byte[(hasLinks ? linksEnd : descEnd) - bars[0] - 1];
+            buf.get(bars[0] + 1, raw);
+            int linksFrom = hasLinks ? accessedEnd - bars[0] : raw.length;
+            task.restoreDetails(new TextDetails(raw, descEnd - bars[0] - 1, linksFrom, charset));
+        } else if (hasLinks) {
+            parseLinks(task::addLink, accessedEnd + 1, linksEnd);
+        }
+        return task;
+    }
+
+    private String description(int from, int to) {
+        if (from == to) return "";
+        String description = urlDecode(from, to);
+        return description != null ? description : string(from, to).replace("/", "|");
+    }
+
+    /** Raw description and links columns of one task line, decoded on first access. */
+    private static final class TextDetails implements Task.Details {
+        private final byte[] raw;
+        private final int descEnd;
+        private final int linksFrom;
+        private final Charset charset;
+
+        TextDetails(byte[] raw, int descEnd, int linksFrom, Charset charset) {
+            this.raw = raw;
+            this.descEnd = descEnd;
+            this.linksFrom = linksFrom;
+            this.charset = charset;
+        }
+
+        private SnapshotScanner scanner() {
+            SnapshotScanner scanner = new SnapshotScanner(charset);
+            scanner.buf = ByteBuffer.wrap(raw);
+            return scanner;
+        }
+
+        @Override
+        public String description() {
+            return scanner().description(0, descEnd);
+        }
+
+        @Override
+        public void links(Map<String, String> into) {
+            if (linksFrom < raw.length) scanner().parseLinks(into::put, linksFrom, raw.length);
+        }
+    }
+
+    private void parseLinks(BiConsumer<String, String> sink, int from, int to) {
+        int pos = from;
+        while (pos <= to) {
+            int comma = indexOf((byte) ',', pos, to);
+            int end = comma < 0 ? to : comma;
+            int arrow = -1;
+            for (int i = pos; i + 1 < end; i++) {
+                if (buf.get(i) == '-' && buf.get(i + 1) == '>') {
+                    arrow = i;
+                    break;
+                }
+            }
+            if (arrow >= 0) {
+                String name = urlDecode(pos, arrow);
+                String url = urlDecode(arrow + 2, end);
+                if (name != null && url != null && !name.isBlank() && !url.isBlank()) {
+                    sink.accept(name, url);
+                }
+            }
+            pos = end + 1;
+        }
+    }
+
+    // --- Byte helpers ---
+    private int indexOf(byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == b) return i;
+        }
+        return -1;
+    }
+
+    private int skipBlank(int from, int to) {
+        while (from < to && (buf.get(from) & 0xff) <= ' ') from++;
+        return from;
+    }
+
+    private int trimEnd(int from, int to) {
+        while (to > from && (buf.get(to - 1) & 0xff) <= ' ') to--;
+        return to;
+    }
+
+    private boolean isBlank(int from, int to) {
+        return skipBlank(from, to) == to;
+    }
+
+    private boolean startsWith(int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf.get(from + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private boolean equalsBytes(int from, int to, byte[] value) {
+        return to - from == value.length && startsWith(from, to, value);
+    }
+
+    private boolean equalsIgnoreCaseTrue(int from, int to) {
+        if (to - from != 4) return false;
+        return (buf.get(from) | 0x20) == 't' && (buf.get(from + 1) | 0x20) == 'r'
+                && (buf.get(from + 2) | 0x20) == 'u' && (buf.get(from + 3) | 0x20) == 'e';
+    }
+
+    private byte[] scratch(int len) {
+        if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+        return scratch;
+    }
+
+    private String string(int from, int to) {
+        int len = to - from;
+        byte[] bytes = scratch(len);
+        buf.get(from, bytes, 0, len);
+        return new String(bytes, 0, len, charset);
+    }
+
+    /** Decodes application/x-www-form-urlencoded UTF-8, or returns null when the input is malformed. */
+    private String urlDecode(int from, int to) {
+        byte[] bytes = scratch(to - from);
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b == '+') {
+                bytes[n++] = ' ';
+            } else if (b == '%') {
+                if (i + 2 >= to) return null;
+                int hi = Character.digit(buf.get(i + 1), 16);
+                int lo = Character.digit(buf.get(i + 2), 16);
+                if (hi < 0 || lo < 0) return null;
+                bytes[n++] = (byte) ((hi << 4) | lo);
+                i += 2;
+            } else {
+                bytes[n++] = b;
+            }
+        }
+        return new String(bytes, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private long parseLong(int from, int to) {
+        if (from >= to) return -1;
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    /** Parses ISO_LOCAL_DATE_TIME (yyyy-MM-ddTHH:mm[:ss[.fraction]]) without creating a String. */
+    private LocalDateTime parseDateTime(int from, int to) {
+        int len = to - from;
+        if (len >= 16 && buf.get(from + 4) == '-' && buf.get(from + 7) == '-' && buf.get(from + 10) == 'T'
+                && buf.get(from + 13) == ':') {
+            int year = digits(from, 4);
+            int month = digits(from + 5, 2);
+            int day = digits(from + 8, 2);
+            int hour = digits(from + 11, 2);
+            int minute = digits(from + 14, 2);
+            int second = 0;
+            int nanos = 0;
+            boolean ok = year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0;
+            if (ok && len > 16) {
+                ok = len >= 19 && buf.get(from + 16) == ':' && (second = digits(from + 17, 2)) >= 0;
+                if (ok && len > 19) {
+                    int fraction = len - 20;
+                    ok = buf.get(from + 19) == '.' && fraction >= 1 && fraction <= 9
+                            && (nanos = digits(from + 20, fraction)) >= 0;
+                    for (int i = fraction; ok && i < 9; i++) nanos *= 10;
+                }
+            }
+            if (ok) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+                } catch (RuntimeException ignored) {}
+            }
+        }
+        try {
+            return LocalDateTime.parse(string(from, to));
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid timestamp in snapshot: " + string(from, to), ex);
+        }
+    }
+}